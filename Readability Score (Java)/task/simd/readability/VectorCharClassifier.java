@@ -0,0 +1,96 @@
+package readability;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * {@link CharClassifier} on the incubating Vector API: up to 32 chars or 64 bytes are compared
+ * per instruction, depending on the preferred vector size of the hardware, and each comparison
+ * mask is turned into bits of the block masks. Only ever loaded through
+ * {@link CharClassifier#vectorized()}.
+ */
+final class VectorCharClassifier implements CharClassifier {
+
+    private static final VectorSpecies<Short> CHARS = ShortVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    // Smallest vector size worth using over the scalar loop
+    private static final int MIN_VECTOR_BITS = 128;
+    // Lowercased to two characters, which the masks cannot describe
+    private static final char DOTTED_CAPITAL_I = '\u0130';
+
+    /**
+     * Creates the classifier.
+     * @throws UnsupportedOperationException If the hardware has no usable vectors.
+     */
+    VectorCharClassifier() {
+        if (CHARS.vectorBitSize() < MIN_VECTOR_BITS) {
+            throw new UnsupportedOperationException("No hardware vectors of at least " + MIN_VECTOR_BITS + " bits.");
+        }
+    }
+
+    @Override
+    public boolean classify(char[] chars, int offset, long[] masks) {
+        long whitespace = 0;
+        long terminators = 0;
+        long vowels = 0;
+        for (int i = 0; i < BLOCK_SIZE; i += CHARS.length()) {
+            ShortVector v = ShortVector.fromCharArray(CHARS, chars, offset + i);
+            if (v.eq((short) DOTTED_CAPITAL_I).anyTrue()) {
+                return false;
+            }
+            // Chars from 0x8000 are negative shorts, so they never fall below ' '
+            VectorMask<Short> format = v.compare(VectorOperators.GE, (short) '\t')
+                    .and(v.compare(VectorOperators.LE, (short) '\r'));
+            if (v.compare(VectorOperators.GE, (short) 0).and(v.lt((short) ' ')).andNot(format).anyTrue()) {
+                return false;
+            }
+            whitespace |= v.eq((short) ' ').or(format).toLong() << i;
+            terminators |= v.eq((short) '.').or(v.eq((short) '!')).or(v.eq((short) '?')).toLong() << i;
+            // Setting bit 5 lowercases ASCII letters and maps nothing else onto them
+            ShortVector lower = v.or((short) 0x20);
+            vowels |= lower.eq((short) 'a').or(lower.eq((short) 'e')).or(lower.eq((short) 'i'))
+                    .or(lower.eq((short) 'o')).or(lower.eq((short) 'u')).or(lower.eq((short) 'y'))
+                    .toLong() << i;
+        }
+        masks[WHITESPACE] = whitespace;
+        masks[TERMINATORS] = terminators;
+        masks[VOWELS] = vowels;
+        return true;
+    }
+
+    @Override
+    public boolean classifyAscii(ByteBuffer bytes, int offset, long[] masks) {
+        long whitespace = 0;
+        long terminators = 0;
+        long vowels = 0;
+        for (int i = 0; i < BLOCK_SIZE; i += BYTES.length()) {
+            ByteVector v = ByteVector.fromByteBuffer(BYTES, bytes, offset + i, ByteOrder.nativeOrder());
+            if (v.lt((byte) 0).anyTrue()) {
+                return false;
+            }
+            // Only ASCII from here, so no negative bytes
+            VectorMask<Byte> format = v.compare(VectorOperators.GE, (byte) '\t')
+                    .and(v.compare(VectorOperators.LE, (byte) '\r'));
+            if (v.lt((byte) ' ').andNot(format).anyTrue()) {
+                return false;
+            }
+            whitespace |= v.eq((byte) ' ').or(format).toLong() << i;
+            terminators |= v.eq((byte) '.').or(v.eq((byte) '!')).or(v.eq((byte) '?')).toLong() << i;
+            ByteVector lower = v.or((byte) 0x20);
+            vowels |= lower.eq((byte) 'a').or(lower.eq((byte) 'e')).or(lower.eq((byte) 'i'))
+                    .or(lower.eq((byte) 'o')).or(lower.eq((byte) 'u')).or(lower.eq((byte) 'y'))
+                    .toLong() << i;
+        }
+        masks[WHITESPACE] = whitespace;
+        masks[TERMINATORS] = terminators;
+        masks[VOWELS] = vowels;
+        return true;
+    }
+}
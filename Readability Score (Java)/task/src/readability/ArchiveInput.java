@@ -0,0 +1,140 @@
+package readability;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Iterates the files of a ZIP, TAR or gzip-compressed TAR archive, recognised by their magic
+ * bytes, without extracting anything.
+ * <p>
+ * The archive is read once, front to back, with {@link ZipInputStream} or
+ * {@link TarInputStream}; each file is handed to the caller as a stream over its content,
+ * which must be consumed before the next file can be read.
+ */
+final class ArchiveInput {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Enough to see the TAR magic at offset 257
+    private static final int HEAD_SIZE = TarInputStream.BLOCK_SIZE;
+
+    /**
+     * Receives each file of an archive in turn.
+     */
+    @FunctionalInterface
+    interface EntryHandler {
+
+        /**
+         * Handles one file.
+         * @param name    The path of the file in the archive.
+         * @param content The content of the file, positioned at its start. It is only valid
+         *                during this call and closing it has no effect.
+         * @throws IOException          If the content cannot be read.
+         * @throws InterruptedException If interrupted while handing the file over.
+         */
+        void accept(String name, InputStream content) throws IOException, InterruptedException;
+    }
+
+    private ArchiveInput() {
+    }
+
+    /**
+     * Tells whether a path is a regular file holding a supported archive.
+     * @param path The path.
+     * @return True for a ZIP, TAR or gzip-compressed TAR file.
+     */
+    static boolean isArchive(Path path) {
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        try (InputStream in = open(path)) {
+            return isZip(in) || isTar(in);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads every regular file of an archive, in archive order.
+     * @param path    Path to the archive.
+     * @param handler Receives each file.
+     * @throws IOException          If the archive cannot be read, is corrupt or is not an archive.
+     * @throws InterruptedException If the handler was interrupted.
+     */
+    static void forEachEntry(Path path, EntryHandler handler) throws IOException, InterruptedException {
+        try (InputStream in = open(path)) {
+            if (isZip(in)) {
+                ZipInputStream zip = new ZipInputStream(in);
+                InputStream content = unclosable(zip);
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    if (!entry.isDirectory()) {
+                        handler.accept(entry.getName(), content);
+                    }
+                }
+            } else if (isTar(in)) {
+                TarInputStream tar = new TarInputStream(in);
+                InputStream content = unclosable(tar);
+                for (TarInputStream.Entry entry = tar.getNextEntry(); entry != null; entry = tar.getNextEntry()) {
+                    handler.accept(entry.name(), content);
+                }
+            } else {
+                throw new IOException("Not a ZIP or TAR archive: " + path);
+            }
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Opens a file for buffered reading, inflating it on the fly if it is gzip-compressed.
+     * The returned stream supports mark and reset.
+     */
+    private static InputStream open(Path path) throws IOException {
+        InputStream file = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE);
+        try {
+            if (GzipInput.isGzip(file)) {
+                return new BufferedInputStream(new GZIPInputStream(file, BUFFER_SIZE), BUFFER_SIZE);
+            }
+            return file;
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    private static boolean isZip(InputStream in) throws IOException {
+        byte[] head = peek(in, 4);
+        // A local file header, or the end of central directory record of an empty archive
+        return head.length == 4 && head[0] == 'P' && head[1] == 'K'
+                && (head[2] == 3 && head[3] == 4 || head[2] == 5 && head[3] == 6);
+    }
+
+    private static boolean isTar(InputStream in) throws IOException {
+        byte[] head = peek(in, HEAD_SIZE);
+        return TarInputStream.isTarHeader(head, head.length);
+    }
+
+    private static byte[] peek(InputStream in, int length) throws IOException {
+        in.mark(length);
+        try {
+            return in.readNBytes(length);
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static InputStream unclosable(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+                // The archive stream is closed once all entries are read
+            }
+        };
+    }
+}
@@ -0,0 +1,502 @@
+package readability;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scores every file of a directory, glob or archive in one JVM.
+ * <p>
+ * Files are streamed from the directory walk into a bounded pipeline: reads run on an
+ * I/O executor (virtual threads when available), scoring runs on a pool sized to the
+ * CPU count, and every document reserves its size against a memory budget before it is
+ * read, so the bytes buffered stay below the budget however many and however large the
+ * files are. A document costs at least {@value #MIN_DOCUMENT_COST} bytes, for its decoding
+ * and scanning buffers, which also caps the number of documents in flight. A compressed
+ * file or an archive entry, whose size is only known once inflated, reserves the most that
+ * is ever buffered and gives back what it did not use. Binary and unreadable files are skipped with a
+ * note on stderr, and one result record is written per document as soon as it is scored;
+ * files that could not be read or written are counted as failures for the exit status.
+ * <p>
+ * Gzip-compressed files are recognised by their magic bytes and inflated on the I/O
+ * executor, so the next file is decompressed while the current one is scored. Only the
+ * first {@value #MAX_BUFFERED_SIZE} decompressed bytes are buffered; the rest of a larger
+ * file is inflated by the scoring thread as it streams through the scanner.
+ * <p>
+ * A ZIP or TAR archive is read once, front to back, on the calling thread, and its files
+ * are fanned out to the scoring pool like files of a directory; nothing is extracted to
+ * disk. Each record is named {@code archive!/path/in/archive}. A file too large to
+ * buffer is scored on the reading thread itself, since the archive stream cannot move on
+ * to the next file before it is consumed.
+ */
+final class BatchScorer {
+
+    // Same heuristic as git: a NUL byte near the start means binary
+    private static final int BINARY_CHECK_LENGTH = 8000;
+    // Larger files are scored through mapped windows instead of being read into memory
+    private static final int MAX_BUFFERED_SIZE = 16 * 1024 * 1024;
+    // Charged for every document, and for a file scored through mapped windows
+    private static final int MIN_DOCUMENT_COST = 64 * 1024;
+    // The budget is counted in KiB so that it fits the int permits of a semaphore
+    private static final int PERMIT_SIZE = 1024;
+
+    private static final String DOCUMENTS_IN_FLIGHT_GAUGE = "readability_batch_documents_in_flight";
+    private static final String BUFFERED_BYTES_GAUGE = "readability_batch_buffered_bytes";
+    private static final String QUEUE_DEPTH_GAUGE = "readability_batch_scoring_queue_depth";
+
+    private final ExecutorService ioExecutor;
+    private final ExecutorService scoringPool;
+    private final Semaphore memory;
+    private final int memoryPermits;
+    private int documentsInFlight; // Guarded by this
+    private final ResultWriter out;
+    private final Set<ReadabilityScoreMapping.IndexType> indices;
+    private final SyllableSource syllableSource;
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructor for BatchScorer, with a memory budget of a quarter of the maximum heap size.
+     * @param scoringThreads Number of scoring threads.
+     * @param out            Where results are written, one record per document; flushed at the end of each run.
+     * @param indices        The indices to compute, as included in each record.
+     * @param syllableSource The source of per-word syllable counts shared by all workers, or null.
+     */
+    BatchScorer(int scoringThreads, ResultWriter out, Set<ReadabilityScoreMapping.IndexType> indices, SyllableSource syllableSource) {
+        this(scoringThreads, Math.max(MAX_BUFFERED_SIZE + 1, Runtime.getRuntime().maxMemory() / 4), out, indices,
+                syllableSource);
+    }
+
+    /**
+     * Constructor for BatchScorer.
+     * @param scoringThreads Number of scoring threads.
+     * @param memoryBudget   Bytes of documents that may be buffered or scored at once; more than
+     *                       {@value #MAX_BUFFERED_SIZE}, so that any document fits.
+     * @param out            Where results are written, one record per document; flushed at the end of each run.
+     * @param indices        The indices to compute, as included in each record.
+     * @param syllableSource The source of per-word syllable counts shared by all workers, or null.
+     * @throws IllegalArgumentException If the budget is too small.
+     */
+    BatchScorer(int scoringThreads, long memoryBudget, ResultWriter out, Set<ReadabilityScoreMapping.IndexType> indices,
+                SyllableSource syllableSource) {
+        if (memoryBudget <= MAX_BUFFERED_SIZE) {
+            throw new IllegalArgumentException("Memory budget too small: " + memoryBudget);
+        }
+        this.ioExecutor = ThreadPools.newIoExecutor();
+        this.scoringPool = ThreadPools.newCpuExecutor(scoringThreads);
+        this.memoryPermits = (int) Math.min(memoryBudget / PERMIT_SIZE, Integer.MAX_VALUE);
+        this.memory = new Semaphore(memoryPermits);
+        this.out = out;
+        this.indices = indices;
+        this.syllableSource = syllableSource;
+        PipelineMetrics.REGISTRY.gauge(DOCUMENTS_IN_FLIGHT_GAUGE,
+                "Batch documents being read, queued or scored", this::getDocumentsInFlight);
+        PipelineMetrics.REGISTRY.gauge(BUFFERED_BYTES_GAUGE,
+                "Bytes of batch documents reserved against the memory budget",
+                () -> (double) (memoryPermits - memory.availablePermits()) * PERMIT_SIZE);
+        PipelineMetrics.REGISTRY.gauge(QUEUE_DEPTH_GAUGE,
+                "Batch documents read and waiting for a scoring thread", () -> ThreadPools.queuedTasks(scoringPool));
+    }
+
+    /**
+     * Tells whether a command-line argument names a batch of files rather than one file.
+     * @param arg The argument.
+     * @return True for a directory, a glob pattern or an archive.
+     */
+    static boolean isBatchInput(String arg) {
+        Path path = existingPath(arg);
+        if (path != null) {
+            // A file such as "report[1].txt" is scored as named, even if it looks like a glob
+            return Files.isDirectory(path) || ArchiveInput.isArchive(path);
+        }
+        return hasGlobCharacters(arg);
+    }
+
+    /**
+     * Scores every regular file in a directory tree, every file matching a glob such as
+     * {@code corpus/**}{@code /*.txt}, or every file of an archive, and waits until all of
+     * them are done. A path that exists is never taken for a glob.
+     * @param pathOrGlob A directory, a glob pattern or an archive.
+     * @throws IOException          If the directory tree or the archive cannot be read.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    void scoreAll(String pathOrGlob) throws IOException, InterruptedException {
+        Path literal = existingPath(pathOrGlob);
+        if (literal != null && ArchiveInput.isArchive(literal)) {
+            scoreArchive(literal);
+            return;
+        }
+        Path base;
+        PathMatcher matcher;
+        int maxDepth;
+        if (literal == null && hasGlobCharacters(pathOrGlob)) {
+            String normalised = pathOrGlob.replace('\\', '/');
+            int globStart = firstGlobCharacter(normalised);
+            int baseEnd = normalised.lastIndexOf('/', globStart);
+            base = Path.of(baseEnd < 0 ? "." : normalised.substring(0, baseEnd + 1));
+            String pattern = normalised.substring(baseEnd + 1);
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            // Without '**' the pattern can only match at a fixed depth
+            maxDepth = pattern.contains("**") ? Integer.MAX_VALUE : pattern.split("/").length;
+        } else {
+            base = Path.of(pathOrGlob);
+            matcher = path -> true;
+            maxDepth = Integer.MAX_VALUE;
+        }
+
+        try {
+            Files.walkFileTree(base, EnumSet.noneOf(FileVisitOption.class), maxDepth, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (attributes.isRegularFile() && matcher.matches(base.relativize(file))) {
+                        try {
+                            submit(file, attributes.size());
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return FileVisitResult.TERMINATE;
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    fail(file.toString(), e);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } finally {
+            awaitAll();
+        }
+    }
+
+    /**
+     * Scores every file of a ZIP, TAR or gzip-compressed TAR archive, and waits until all
+     * of them are done.
+     * @param archive Path to the archive.
+     * @throws IOException          If the archive cannot be read or is corrupt.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    void scoreArchive(Path archive) throws IOException, InterruptedException {
+        try {
+            ArchiveInput.forEachEntry(archive, (name, content) -> readEntry(archive + "!/" + name, content));
+        } finally {
+            awaitAll();
+        }
+    }
+
+    /**
+     * Stops the worker threads and removes the gauges of this scorer. Documents still in
+     * flight are abandoned.
+     * @throws InterruptedException If interrupted while waiting for the threads to stop.
+     */
+    void shutdown() throws InterruptedException {
+        PipelineMetrics.REGISTRY.unregister(DOCUMENTS_IN_FLIGHT_GAUGE);
+        PipelineMetrics.REGISTRY.unregister(BUFFERED_BYTES_GAUGE);
+        PipelineMetrics.REGISTRY.unregister(QUEUE_DEPTH_GAUGE);
+        ioExecutor.shutdown();
+        scoringPool.shutdown();
+        ioExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        scoringPool.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Gets the number of documents being read, queued or scored.
+     * @return The documents in flight.
+     */
+    synchronized int getDocumentsInFlight() {
+        return documentsInFlight;
+    }
+
+    /**
+     * Gets the number of documents that could not be read or whose record could not be
+     * written. Binary files are skipped on purpose and not counted.
+     * @return The number of failed documents so far.
+     */
+    long getFailureCount() {
+        return failures.sum();
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Waits for every document in flight, then makes the results visible.
+     */
+    private void awaitAll() throws InterruptedException {
+        synchronized (this) {
+            while (documentsInFlight > 0) {
+                wait();
+            }
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+        }
+    }
+
+    private void submit(Path file, long size) throws InterruptedException {
+        int permits = reserve(0, size > MAX_BUFFERED_SIZE ? 0 : size);
+        documentStarted();
+        ioExecutor.execute(() -> read(file, permits));
+    }
+
+    /**
+     * Runs on the I/O executor: reads the file and hands it over to the scoring pool.
+     * @param permits The memory reserved for the file, as seen by the directory walk.
+     */
+    private void read(Path file, int permits) {
+        boolean handedOver = false;
+        try {
+            if (GzipInput.isGzip(file)) {
+                permits = reserve(permits, MAX_BUFFERED_SIZE + 1L);
+                handedOver = readCompressed(file, permits);
+                return;
+            }
+            long size = Files.size(file);
+            if (size > MAX_BUFFERED_SIZE) {
+                if (isBinary(readHead(file))) {
+                    skip(file, "binary file");
+                } else {
+                    int reserved = reserve(permits, 0);
+                    scoringPool.execute(() -> score(file.toString(), null, reserved));
+                    handedOver = true;
+                }
+                return;
+            }
+            // The file may have grown since the directory was walked
+            permits = reserve(permits, size);
+            ScoringEvents.ReadEvent event = new ScoringEvents.ReadEvent();
+            event.begin();
+            long start = System.nanoTime();
+            byte[] bytes = Files.readAllBytes(file);
+            PipelineMetrics.recordStage(PipelineMetrics.Stage.READ, start);
+            event.commit(file.toString(), bytes.length);
+            if (isBinary(bytes)) {
+                skip(file, "binary file");
+                return;
+            }
+            int reserved = permits;
+            scoringPool.execute(() -> score(file.toString(), new ByteArrayInputStream(bytes), reserved));
+            handedOver = true;
+        } catch (IOException e) {
+            fail(file.toString(), e);
+        } catch (InterruptedException e) {
+            // Not thrown while a reservation is held
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!handedOver) {
+                documentDone(permits);
+            }
+        }
+    }
+
+    /**
+     * Runs on the I/O executor: inflates the start of a gzip-compressed file and hands it
+     * over to the scoring pool, followed by the rest of the stream if there is more.
+     * @param permits The memory reserved for the largest buffered document.
+     * @return Whether the document was handed over, with the permits it still holds.
+     */
+    private boolean readCompressed(Path file, int permits) throws IOException, InterruptedException {
+        ScoringEvents.ReadEvent event = new ScoringEvents.ReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        InputStream in = GzipInput.open(file);
+        boolean streamed = false;
+        try {
+            byte[] head = in.readNBytes(MAX_BUFFERED_SIZE + 1);
+            PipelineMetrics.recordStage(PipelineMetrics.Stage.READ, start);
+            event.commit(file.toString(), head.length);
+            if (isBinary(head)) {
+                skip(file, "binary file");
+                return false;
+            }
+            InputStream content = new ByteArrayInputStream(head);
+            if (head.length > MAX_BUFFERED_SIZE) {
+                // The scoring thread inflates the rest and closes the stream
+                content = new SequenceInputStream(content, in);
+                streamed = true;
+            }
+            InputStream document = content;
+            int reserved = streamed ? permits : reserve(permits, head.length);
+            scoringPool.execute(() -> score(file.toString(), document, reserved));
+            return true;
+        } finally {
+            if (!streamed) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Runs on the archive reading thread: buffers one file of the archive and hands it over
+     * to the scoring pool, or scores it right here if it is too large to buffer.
+     */
+    private void readEntry(String name, InputStream content) throws IOException, InterruptedException {
+        int permits = reserve(0, MAX_BUFFERED_SIZE + 1L);
+        documentStarted();
+        boolean handedOver = false;
+        try {
+            ScoringEvents.ReadEvent event = new ScoringEvents.ReadEvent();
+            event.begin();
+            long start = System.nanoTime();
+            byte[] head = content.readNBytes(MAX_BUFFERED_SIZE + 1);
+            PipelineMetrics.recordStage(PipelineMetrics.Stage.READ, start);
+            event.commit(name, head.length);
+            if (isBinary(head)) {
+                skip(name, "binary file");
+                return;
+            }
+            if (head.length <= MAX_BUFFERED_SIZE) {
+                int reserved = reserve(permits, head.length);
+                handedOver = true;
+                scoringPool.execute(() -> score(name, new ByteArrayInputStream(head), reserved));
+            } else {
+                handedOver = true;
+                score(name, new SequenceInputStream(new ByteArrayInputStream(head), content), permits);
+            }
+        } finally {
+            if (!handedOver) {
+                documentDone(permits);
+            }
+        }
+    }
+
+    /**
+     * Scores a document and writes its record; runs on the scoring pool, or on the
+     * archive reading thread for a large archive entry.
+     * @param name    The document name: its path, or the archive path and the entry path.
+     * @param in      The content of the document, closed once scored, or null to score the
+     *                file at path {@code name} through mapped windows.
+     * @param permits The memory reserved for the document, given back once scored.
+     */
+    private void score(String name, InputStream in, int permits) {
+        try (in) {
+            Readability readability = in != null
+                    ? Readability.fromInputStream(name, in, indices, syllableSource)
+                    : Readability.fromMappedFile(name, indices, syllableSource);
+            write(name, readability);
+        } catch (IOException e) {
+            fail(name, e);
+        } finally {
+            documentDone(permits);
+        }
+    }
+
+    /**
+     * Changes the memory reserved for a document, waiting if it needs more than is free.
+     * Nothing is held while waiting, so documents growing their reservation at the same
+     * time cannot deadlock by each holding part of the budget.
+     * @param permits The permits held so far, possibly none.
+     * @param bytes   The bytes the document will buffer, or 0 if it is not buffered.
+     * @return The permits now held.
+     * @throws InterruptedException If interrupted while waiting for a first reservation;
+     *                              a reservation that is only growing is not interrupted.
+     */
+    private int reserve(int permits, long bytes) throws InterruptedException {
+        long cost = Math.max(bytes, MIN_DOCUMENT_COST);
+        int needed = (int) Math.min((cost + PERMIT_SIZE - 1) / PERMIT_SIZE, memoryPermits);
+        if (permits == 0) {
+            memory.acquire(needed);
+        } else if (needed < permits) {
+            memory.release(permits - needed);
+        } else if (needed > permits) {
+            memory.release(permits);
+            memory.acquireUninterruptibly(needed);
+        }
+        return needed;
+    }
+
+    private synchronized void documentStarted() {
+        documentsInFlight++;
+    }
+
+    private void documentDone(int permits) {
+        memory.release(permits);
+        synchronized (this) {
+            if (--documentsInFlight == 0) {
+                notifyAll();
+            }
+        }
+    }
+
+    private void write(String name, Readability readability) {
+        try {
+            out.write(name, readability);
+        } catch (IOException e) {
+            failures.increment();
+            System.err.println("Error writing the result of " + name + ": " + e.getMessage());
+        }
+    }
+
+    private void fail(String name, IOException e) {
+        failures.increment();
+        skip(name, e.getMessage());
+    }
+
+    private static void skip(Path file, String reason) {
+        skip(file.toString(), reason);
+    }
+
+    private static void skip(String name, String reason) {
+        PipelineMetrics.documentSkipped();
+        System.err.println("Skipping " + name + ": " + reason);
+    }
+
+    /**
+     * Gets the path an argument names, if it exists.
+     * @return The path, or null if there is no such file or the argument is not a valid path.
+     */
+    private static Path existingPath(String arg) {
+        try {
+            Path path = Path.of(arg);
+            return Files.exists(path) ? path : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readHead(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(BINARY_CHECK_LENGTH);
+        }
+    }
+
+    private static boolean isBinary(byte[] bytes) {
+        for (int i = 0, end = Math.min(bytes.length, BINARY_CHECK_LENGTH); i < end; i++) {
+            if (bytes[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasGlobCharacters(String arg) {
+        return firstGlobCharacter(arg) >= 0;
+    }
+
+    private static int firstGlobCharacter(String arg) {
+        for (int i = 0; i < arg.length(); i++) {
+            char c = arg.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
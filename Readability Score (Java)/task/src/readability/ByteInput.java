@@ -0,0 +1,177 @@
+package readability;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Feeds encoded bytes to a {@link TextScanner}, bypassing the charset decoder for ASCII.
+ * <p>
+ * In UTF-8 and the other ASCII-compatible charsets, a byte below 0x80 always stands for
+ * the ASCII character of the same value. Such bytes are handed straight to the scanner,
+ * so plain ASCII text is never decoded into an intermediate char buffer. Only runs of
+ * non-ASCII bytes go through the charset decoder, each together with the ASCII byte that
+ * ends it, so malformed sequences are replaced exactly as on the decoding path. Other
+ * charsets are always decoded.
+ * <p>
+ * This saves the decoding step, not scanning time: the scan dominates, and the decoder's
+ * own ASCII loop is cheap, so both paths ran at about 80 to 120 MB/s in ByteInputBenchmark,
+ * within the noise of each other.
+ */
+final class ByteInput {
+
+    private static final int BYTE_BUFFER_SIZE = 8192;
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+
+    private ByteInput() {
+    }
+
+    /**
+     * Creates a decoder for the default charset with the same error handling as FileReader.
+     * @return A decoder that replaces malformed and unmappable input.
+     */
+    static CharsetDecoder newDecoder() {
+        return Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Creates a char buffer suitable for {@link #scan(CharsetDecoder, ByteBuffer, CharBuffer, boolean, TextScanner)}.
+     * @return An empty char buffer.
+     */
+    static CharBuffer newCharBuffer() {
+        return CharBuffer.allocate(CHAR_BUFFER_SIZE);
+    }
+
+    /**
+     * Scans a whole byte stream, decoded with the default charset, without finishing the scanner.
+     * The stream is read to the end but not closed.
+     * @param in      The bytes to scan.
+     * @param scanner The scanner to feed.
+     * @return The number of bytes read.
+     * @throws IOException If the stream cannot be read.
+     */
+    static long scan(InputStream in, TextScanner scanner) throws IOException {
+        CharsetDecoder decoder = newDecoder();
+        CharBuffer chars = newCharBuffer();
+        ByteBuffer bytes = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+        long total = 0;
+        int read;
+        while ((read = in.read(bytes.array(), bytes.position(), bytes.remaining())) != -1) {
+            total += read;
+            bytes.position(bytes.position() + read).flip();
+            scan(decoder, bytes, chars, false, scanner);
+            // Keep a multi-byte character cut by the end of the chunk for the next one
+            bytes.compact();
+        }
+        bytes.flip();
+        scan(decoder, bytes, chars, true, scanner);
+        flush(decoder, chars, scanner);
+        return total;
+    }
+
+    /**
+     * Scans the remaining bytes of a buffer, bypassing the decoder for ASCII if the charset allows it.
+     * On return, the buffer position is past the last byte consumed; only a character cut by
+     * the end of the buffer can be left over, and only when this is not the end of the input.
+     * @param decoder    The decoder, reused across calls for the same input.
+     * @param bytes      The bytes to scan.
+     * @param chars      The char buffer to decode into, empty between calls.
+     * @param endOfInput Whether no more bytes follow.
+     * @param scanner    The scanner to feed.
+     */
+    static void scan(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean endOfInput,
+                     TextScanner scanner) {
+        if (isAsciiTransparent(decoder.charset())) {
+            scanAscii(decoder, bytes, chars, endOfInput, scanner);
+        } else {
+            decode(decoder, bytes, chars, endOfInput, scanner);
+        }
+    }
+
+    /**
+     * Scans the remaining bytes of a buffer, feeding ASCII bytes directly and decoding the rest.
+     * The charset must be ASCII-transparent.
+     */
+    static void scanAscii(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean endOfInput,
+                          TextScanner scanner) {
+        int limit = bytes.limit();
+        int position = bytes.position();
+        while (position < limit) {
+            position = scanner.acceptAscii(bytes, position, limit);
+            if (position == limit) {
+                break;
+            }
+            int runEnd = position + 1;
+            while (runEnd < limit && bytes.get(runEnd) < 0) {
+                runEnd++;
+            }
+            boolean lastRun = runEnd == limit;
+            int sliceEnd = lastRun ? limit : runEnd + 1;
+            bytes.limit(sliceEnd).position(position);
+            decode(decoder, bytes, chars, lastRun && endOfInput, scanner);
+            position = bytes.position();
+            bytes.limit(limit);
+            if (position < sliceEnd) {
+                // A character cut by the end of the buffer, left for the next call
+                break;
+            }
+        }
+        bytes.position(position);
+    }
+
+    /**
+     * Decodes the remaining bytes of a buffer and feeds every character to the scanner.
+     */
+    static void decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars, boolean endOfInput,
+                       TextScanner scanner) {
+        CoderResult result;
+        do {
+            result = decoder.decode(bytes, chars, endOfInput);
+            drain(chars, scanner);
+        } while (result.isOverflow());
+    }
+
+    /**
+     * Feeds whatever the decoder still holds at the end of the input.
+     * @param decoder The decoder.
+     * @param chars   The char buffer used with it.
+     * @param scanner The scanner to feed.
+     */
+    static void flush(CharsetDecoder decoder, CharBuffer chars, TextScanner scanner) {
+        decode(decoder, ByteBuffer.allocate(0), chars, true, scanner);
+        while (decoder.flush(chars) == CoderResult.OVERFLOW) {
+            drain(chars, scanner);
+        }
+        drain(chars, scanner);
+    }
+
+    /**
+     * Tells whether every ASCII byte of the charset always encodes that ASCII character,
+     * so that a byte like '.' can never be part of a multi-byte sequence.
+     * @param charset The charset.
+     * @return True for UTF-8, US-ASCII and the ISO-8859 and windows-125x families.
+     */
+    static boolean isAsciiTransparent(Charset charset) {
+        String name = charset.name();
+        return charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1)
+                || name.startsWith("ISO-8859-")
+                || name.startsWith("windows-125");
+    }
+
+    // --- Private Helper Methods ---
+
+    private static void drain(CharBuffer chars, TextScanner scanner) {
+        scanner.accept(chars.array(), 0, chars.position());
+        chars.clear();
+    }
+}
@@ -0,0 +1,71 @@
+package readability;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Classifies a block of {@value #BLOCK_SIZE} characters at once into bitmasks, bit {@code i}
+ * standing for the character at {@code offset + i}: whitespace, sentence terminators and
+ * vowels, with the same sets as {@link TextScanner} and {@link SyllableCounter}.
+ * {@link TextScanner} derives its counts from the masks with popcounts and boundary
+ * detection instead of classifying one character at a time.
+ */
+interface CharClassifier {
+
+    /** System property turning the SIMD classifier on, off by default. */
+    String SIMD_PROPERTY = "readability.simd";
+
+    /** Number of characters classified per call; one bit per character of a long. */
+    int BLOCK_SIZE = 64;
+
+    /** Index of the whitespace mask in the masks array. */
+    int WHITESPACE = 0;
+    /** Index of the sentence terminator mask in the masks array. */
+    int TERMINATORS = 1;
+    /** Index of the vowel mask in the masks array. */
+    int VOWELS = 2;
+
+    /**
+     * Classifies a block of characters, unless it contains a character that counts as more
+     * than one in the syllable analysis ('İ', lowercased to two characters) or a control
+     * character that is not whitespace, whose counts depend on the text that follows it.
+     * @param chars  The characters.
+     * @param offset Index of the first character; {@value #BLOCK_SIZE} characters must follow.
+     * @param masks  Receives the three masks, at {@link #WHITESPACE}, {@link #TERMINATORS} and {@link #VOWELS},
+     *               only if the block can be described by them.
+     * @return False if the block must be scanned one character at a time.
+     */
+    boolean classify(char[] chars, int offset, long[] masks);
+
+    /**
+     * Classifies a block of ASCII bytes, unless it contains a non-ASCII byte or a control
+     * character that is not whitespace.
+     * @param bytes  The bytes; their position and limit are ignored.
+     * @param offset Index of the first byte; {@value #BLOCK_SIZE} bytes must follow.
+     * @param masks  Receives the three masks, only if the block can be described by them.
+     * @return False if the block must be scanned one byte at a time.
+     */
+    boolean classifyAscii(ByteBuffer bytes, int offset, long[] masks);
+
+    /**
+     * Loads the SIMD classifier if it was asked for with {@code -Dreadability.simd=true}. It
+     * needs the incubating Vector API, which is only available when the JVM runs with
+     * {@code --add-modules jdk.incubator.vector}, and hardware vectors of at least 128 bits.
+     * <p>
+     * It is off by default because it has not been shown to pay off: on an AVX-512 machine the
+     * per-character path scanned a 44 MB file faster, as bytes and as chars, with or without
+     * syllables. VectorTextScannerBenchmark and ByteInputBenchmark compare the two paths.
+     * @return The classifier, or null if it is off or not supported by the running JVM.
+     */
+    static CharClassifier vectorized() {
+        if (!Boolean.getBoolean(SIMD_PROPERTY) || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            // Loaded reflectively so that nothing links against the module when it is absent
+            Class<?> type = Class.forName("readability.VectorCharClassifier");
+            return (CharClassifier) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
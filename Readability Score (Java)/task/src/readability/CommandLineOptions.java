@@ -0,0 +1,314 @@
+package readability;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parsed command-line arguments of {@link Main}.
+ * <p>
+ * Without options the program keeps its original interactive behaviour. Choosing the
+ * indices, the output format, a metrics export or several inputs makes it non-interactive, so it can be
+ * used in shell pipelines.
+ */
+final class CommandLineOptions {
+
+    /** Input name standing for the standard input. */
+    static final String STDIN = "-";
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java readability.Main [options] <file | directory | glob | archive | ->...",
+            "Options:",
+            "  -i, --index LIST    indices to compute: ARI, FK, SMOG, CL (comma-separated) or all",
+            "  -f, --format NAME   output format: plain (default), csv, jsonl or binary",
+            "  -q, --no-text       do not echo the text before the statistics",
+            "  --max-echo N        echo at most N characters of the text",
+            "  -s, --serve PORT    run an HTTP scoring service on PORT instead (POST /score)",
+            "  --bind ADDRESS      address for --serve and --metrics-port: 127.0.0.1 (default),",
+            "                      0.0.0.0 for every interface, or a host name",
+            "  --syllable-cache N  share a cache of up to N words' syllable counts across documents",
+            "  --dictionary FILE   count syllables with a compiled pronunciation dictionary",
+            "  --compile-dictionary SOURCE FILE",
+            "                      compile a word/count or CMU-format text dictionary and exit",
+            "  --metrics-port PORT serve Prometheus metrics on http://ADDRESS:PORT/metrics",
+            "  --metrics-file FILE write Prometheus metrics to FILE every 10 seconds and at exit",
+            "  -h, --help          print this help",
+            "Without --index, --format and the metrics options, a single file is scored interactively.",
+            "Exit status: 0 on success, 1 if an input, output, dictionary or port could not be used,",
+            "2 for an unknown option or an invalid option value.");
+
+    private final List<String> inputs;
+    private final Set<ReadabilityScoreMapping.IndexType> indices;
+    private final ResultFormat format;
+    private final long echoLimit;
+    private final boolean help;
+    private final int servePort;
+    private final InetAddress bindAddress;
+    private final int syllableCacheSize;
+    private final String dictionary;
+    private final String dictionarySource;
+    private final int metricsPort;
+    private final String metricsFile;
+
+    private CommandLineOptions(List<String> inputs, Set<ReadabilityScoreMapping.IndexType> indices,
+                               ResultFormat format, long echoLimit, boolean help, int servePort,
+                               InetAddress bindAddress, int syllableCacheSize, String dictionary, String dictionarySource,
+                               int metricsPort, String metricsFile) {
+        this.inputs = inputs;
+        this.indices = indices;
+        this.format = format;
+        this.echoLimit = echoLimit;
+        this.help = help;
+        this.servePort = servePort;
+        this.bindAddress = bindAddress;
+        this.syllableCacheSize = syllableCacheSize;
+        this.dictionary = dictionary;
+        this.dictionarySource = dictionarySource;
+        this.metricsPort = metricsPort;
+        this.metricsFile = metricsFile;
+    }
+
+    /**
+     * Parses the command-line arguments.
+     * @param args The arguments given to main.
+     * @return The parsed options.
+     * @throws IllegalArgumentException If an option is unknown or has an invalid value.
+     */
+    static CommandLineOptions parse(String[] args) {
+        List<String> inputs = new ArrayList<>();
+        Set<ReadabilityScoreMapping.IndexType> indices = null;
+        ResultFormat format = null;
+        long echoLimit = ResultWriter.ECHO_ALL;
+        boolean help = false;
+        int servePort = -1;
+        InetAddress bindAddress = InetAddress.getLoopbackAddress();
+        int syllableCacheSize = 0;
+        String dictionary = null;
+        String dictionarySource = null;
+        int metricsPort = -1;
+        String metricsFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-i", "--index" -> indices = parseIndices(valueOf(args, ++i, arg));
+                case "-f", "--format" -> format = ResultFormat.fromName(valueOf(args, ++i, arg));
+                case "-q", "--no-text" -> echoLimit = 0;
+                case "--max-echo" -> echoLimit = parseEchoLimit(valueOf(args, ++i, arg));
+                case "-h", "--help" -> help = true;
+                case "-s", "--serve" -> servePort = parsePort(valueOf(args, ++i, arg));
+                case "--bind" -> bindAddress = parseAddress(valueOf(args, ++i, arg));
+                case "--syllable-cache" -> syllableCacheSize = parseCacheSize(valueOf(args, ++i, arg));
+                case "--dictionary" -> dictionary = valueOf(args, ++i, arg);
+                case "--metrics-port" -> metricsPort = parsePort(valueOf(args, ++i, arg));
+                case "--metrics-file" -> metricsFile = valueOf(args, ++i, arg);
+                case "--compile-dictionary" -> {
+                    dictionarySource = valueOf(args, ++i, arg);
+                    dictionary = valueOf(args, ++i, arg);
+                }
+                default -> {
+                    if (arg.startsWith("-") && !arg.equals(STDIN)) {
+                        throw new IllegalArgumentException("Unknown option: " + arg);
+                    }
+                    inputs.add(arg);
+                }
+            }
+        }
+
+        // A directory, glob or archive is always scored in batch, and the standard input cannot also answer the prompt;
+        // metrics are only published by the non-interactive modes
+        boolean interactive = indices == null && format == null && metricsPort < 0 && metricsFile == null
+                && (inputs.isEmpty() || inputs.size() == 1 && !inputs.get(0).equals(STDIN)
+                && !BatchScorer.isBatchInput(inputs.get(0)));
+        return new CommandLineOptions(
+                Collections.unmodifiableList(inputs),
+                interactive ? null : indices != null ? indices : EnumSet.allOf(ReadabilityScoreMapping.IndexType.class),
+                format != null ? format : ResultFormat.PLAIN,
+                echoLimit,
+                help,
+                servePort,
+                bindAddress,
+                syllableCacheSize,
+                dictionary,
+                dictionarySource,
+                metricsPort,
+                metricsFile);
+    }
+
+    // --- Getters ---
+
+    List<String> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * Gets the indices to compute.
+     * @return The indices, or null in interactive mode where the user is asked for them.
+     */
+    Set<ReadabilityScoreMapping.IndexType> getIndices() {
+        return indices;
+    }
+
+    boolean isInteractive() {
+        return indices == null;
+    }
+
+    ResultFormat getFormat() {
+        return format;
+    }
+
+    boolean isEchoText() {
+        return echoLimit > 0;
+    }
+
+    /**
+     * Gets the maximum number of characters of the text to echo before the statistics.
+     * @return The limit, 0 with --no-text, or {@link ResultWriter#ECHO_ALL}.
+     */
+    long getEchoLimit() {
+        return echoLimit;
+    }
+
+    boolean isHelp() {
+        return help;
+    }
+
+    boolean isServe() {
+        return servePort >= 0;
+    }
+
+    int getServePort() {
+        return servePort;
+    }
+
+    /**
+     * Gets the address the scoring service and the metrics port listen on.
+     * @return The address given with --bind, or the loopback address.
+     */
+    InetAddress getBindAddress() {
+        return bindAddress;
+    }
+
+    /**
+     * Gets the maximum number of words in the shared syllable cache.
+     * @return The cache size, or 0 for no cache.
+     */
+    int getSyllableCacheSize() {
+        return syllableCacheSize;
+    }
+
+    /**
+     * Gets the compiled pronunciation dictionary to count syllables with.
+     * @return Its path, or null to use the heuristic alone.
+     */
+    String getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Tells whether a text dictionary should be compiled into {@link #getDictionary()} instead of scoring.
+     * @return True with --compile-dictionary.
+     */
+    boolean isCompileDictionary() {
+        return dictionarySource != null;
+    }
+
+    String getDictionarySource() {
+        return dictionarySource;
+    }
+
+    /**
+     * Gets the local port to serve metrics on.
+     * @return The port, or -1 not to serve them.
+     */
+    int getMetricsPort() {
+        return metricsPort;
+    }
+
+    /**
+     * Gets the file to write metrics to periodically.
+     * @return Its path, or null not to write them.
+     */
+    String getMetricsFile() {
+        return metricsFile;
+    }
+
+    // --- Private Helper Methods ---
+
+    private static String valueOf(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static int parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value);
+            if (port >= 0 && port <= 65535) {
+                return port;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid port: " + value);
+    }
+
+    private static InetAddress parseAddress(String value) {
+        try {
+            return InetAddress.getByName(value);
+        } catch (UnknownHostException | SecurityException e) {
+            throw new IllegalArgumentException("Invalid address: " + value);
+        }
+    }
+
+    private static int parseCacheSize(String value) {
+        try {
+            int size = Integer.parseInt(value);
+            if (size > 0 && size <= SyllableCache.MAX_SIZE) {
+                return size;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid cache size: " + value);
+    }
+
+    private static long parseEchoLimit(String value) {
+        try {
+            long limit = Long.parseLong(value);
+            if (limit >= 0) {
+                return limit;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid echo limit: " + value);
+    }
+
+    private static Set<ReadabilityScoreMapping.IndexType> parseIndices(String list) {
+        Set<ReadabilityScoreMapping.IndexType> indices = EnumSet.noneOf(ReadabilityScoreMapping.IndexType.class);
+        for (String name : list.split(",")) {
+            String trimmed = name.trim();
+            if ("all".equalsIgnoreCase(trimmed)) {
+                indices.addAll(EnumSet.allOf(ReadabilityScoreMapping.IndexType.class));
+                continue;
+            }
+            boolean found = false;
+            for (ReadabilityScoreMapping.IndexType type : ReadabilityScoreMapping.IndexType.values()) {
+                if (type.name().equalsIgnoreCase(trimmed)) {
+                    indices.add(type);
+                    found = true;
+                }
+            }
+            if (!found) {
+                throw new IllegalArgumentException("Invalid index type: " + trimmed);
+            }
+        }
+        return indices;
+    }
+}
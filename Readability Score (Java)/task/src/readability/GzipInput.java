@@ -0,0 +1,93 @@
+package readability;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads gzip-compressed files, recognised by their magic bytes rather than their name.
+ * <p>
+ * The text is inflated while it streams into a {@link TextScanner} through {@link ByteInput},
+ * so a compressed file is never decompressed to disk or held on the heap as a whole.
+ * Concatenated gzip members are read as one text, like {@code zcat} does.
+ */
+final class GzipInput {
+
+    private static final int MAGIC_1 = 0x1f;
+    private static final int MAGIC_2 = 0x8b;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private GzipInput() {
+    }
+
+    /**
+     * Tells whether a file starts with the gzip magic bytes.
+     * @param path Path to the file.
+     * @return True if the file is gzip-compressed.
+     * @throws IOException If the file cannot be read.
+     */
+    static boolean isGzip(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            return in.read() == MAGIC_1 && in.read() == MAGIC_2;
+        }
+    }
+
+    /**
+     * Tells whether a stream starts with the gzip magic bytes, without consuming them.
+     * @param in A stream that supports mark and reset.
+     * @return True if the stream is gzip-compressed.
+     * @throws IOException If the stream cannot be read.
+     */
+    static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        try {
+            return in.read() == MAGIC_1 && in.read() == MAGIC_2;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Opens a gzip-compressed file for reading its decompressed content.
+     * @param path Path to the file.
+     * @return The decompressed stream, to be closed by the caller.
+     * @throws IOException If the file cannot be opened or has no valid gzip header.
+     */
+    static InputStream open(Path path) throws IOException {
+        InputStream file = Files.newInputStream(path);
+        try {
+            return new GZIPInputStream(file, BUFFER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the whole decompressed content of a gzip-compressed file.
+     * @param path Path to the file.
+     * @return The decompressed bytes.
+     * @throws IOException If the file cannot be read or is corrupt.
+     */
+    static byte[] readAllBytes(Path path) throws IOException {
+        try (InputStream in = open(path)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Scans a whole gzip-compressed file, decoded with the default charset, and finishes the scanner.
+     * @param path    Path to the file.
+     * @param scanner The scanner to feed.
+     * @return The finished scanner.
+     * @throws IOException If the file cannot be read or is corrupt.
+     */
+    static TextScanner scan(Path path, TextScanner scanner) throws IOException {
+        try (InputStream in = open(path)) {
+            ByteInput.scan(in, scanner);
+        }
+        return scanner.finish();
+    }
+}
@@ -0,0 +1,362 @@
+package readability;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * A text being edited, whose statistics and scores are kept up to date incrementally.
+ * <p>
+ * The text is split into segments at the {@link TextScanner.SplitPoints}, before the first
+ * visible character after a terminator and some whitespace, where a sentence and a
+ * whitespace-separated token both end: there the scanner is back in its initial state, so
+ * the {@link TextStatistics} of the segments combine exactly, hidden token counts included.
+ * Sentences that are not separated by whitespace alone, as in "a.b" or "a.\u0001 b", share
+ * a segment. Segments live in a treap ordered by position, each node holding the
+ * statistics of its segment and of its whole subtree, so the document totals are always
+ * available at the root. An edit only re-scans the segments it touches plus the one before
+ * it, whose terminator run the edit may extend, then swaps the new segments in with a
+ * couple of splits and merges. The cost of an edit therefore depends on the size of the edit
+ * and of the sentences around it, plus a logarithm of the number of sentences, never on the
+ * size of the document.
+ * <p>
+ * The characters are kept in a gap buffer, so typing or deleting around the same place only
+ * moves the characters between two consecutive edits. This class is not thread-safe.
+ */
+public final class IncrementalDocument {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final GapBuffer text = new GapBuffer();
+    private final SplittableRandom priorities = new SplittableRandom(0x5EED);
+    private Segment root;
+
+    /**
+     * Creates an empty document.
+     */
+    public IncrementalDocument() {
+    }
+
+    /**
+     * Creates a document with an initial text.
+     * @param initialText The initial text.
+     */
+    public IncrementalDocument(CharSequence initialText) {
+        insert(0, initialText);
+    }
+
+    // --- Edits ---
+
+    /**
+     * Inserts text at an offset.
+     * @param offset   Where to insert, between 0 and {@link #length()}.
+     * @param inserted The text to insert.
+     * @throws IndexOutOfBoundsException If the offset is outside the document.
+     */
+    public void insert(int offset, CharSequence inserted) {
+        replace(offset, 0, inserted);
+    }
+
+    /**
+     * Deletes a range of text.
+     * @param offset Index of the first character to delete.
+     * @param length Number of characters to delete.
+     * @throws IndexOutOfBoundsException If the range is outside the document.
+     */
+    public void delete(int offset, int length) {
+        replace(offset, length, "");
+    }
+
+    /**
+     * Replaces a range of text, then re-scans only the sentences around it.
+     * @param offset      Index of the first character to replace.
+     * @param length      Number of characters to replace.
+     * @param replacement The new text.
+     * @throws IndexOutOfBoundsException If the range is outside the document.
+     */
+    public void replace(int offset, int length, CharSequence replacement) {
+        Objects.checkFromIndexSize(offset, length, text.length());
+        if (length == 0 && replacement.length() == 0) {
+            return;
+        }
+        int documentLength = text.length();
+
+        // Whole segments whose tokens may change: from the one holding the character before
+        // the edit (a character typed after its final terminator would join it to the next one)
+        // to the one holding the first character after it, and the next one if the boundary
+        // between them looks back past the edit for its terminator. The characters that decide
+        // the outer boundaries are left untouched by the edit, so those boundaries remain.
+        int regionStart = offset == 0 ? 0 : segmentStart(offset - 1);
+        int regionEnd = offset + length == documentLength ? documentLength : segmentEnd(offset + length);
+        if (regionEnd < documentLength && onlyWhitespace(offset + length, regionEnd)) {
+            regionEnd = segmentEnd(regionEnd);
+        }
+
+        text.replace(offset, length, replacement);
+
+        Segment[] parts = split(root, regionStart, 0);
+        Segment[] rest = split(parts[1], regionEnd, regionStart);
+        Segment rescanned = scanSegments(regionStart, regionEnd - length + replacement.length());
+        root = merge(merge(parts[0], rescanned), rest[1]);
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the number of characters in the document.
+     * @return The length.
+     */
+    public int length() {
+        return text.length();
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+
+    /**
+     * Gets the statistics of the whole document, maintained across edits.
+     * @return The statistics.
+     */
+    public TextStatistics getStatistics() {
+        return root == null ? TextStatistics.EMPTY : root.total;
+    }
+
+    /**
+     * Scores the current text from the maintained statistics, without re-scanning it.
+     * @return The Readability of the document.
+     */
+    public Readability getReadability() {
+        return Readability.fromStatistics(getStatistics());
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Scans a range of the text, cutting it into segments at the split points.
+     * @return The treap of the new segments, or null for an empty range.
+     */
+    private Segment scanSegments(int start, int end) {
+        Segment segments = null;
+        int segmentStart = start;
+        TextScanner.SplitPoints splitPoints = new TextScanner.SplitPoints();
+        for (int i = start; i < end; i++) {
+            if (splitPoints.isSplitBefore(text.charAt(i))) {
+                segments = merge(segments, newSegment(segmentStart, i));
+                segmentStart = i;
+            }
+        }
+        if (segmentStart < end) {
+            segments = merge(segments, newSegment(segmentStart, end));
+        }
+        return segments;
+    }
+
+    private boolean onlyWhitespace(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!TextScanner.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Segment newSegment(int start, int end) {
+        TextScanner scanner = new TextScanner();
+        text.scan(scanner, start, end);
+        return new Segment(end - start, scanner.finish().getStatistics(), priorities.nextInt());
+    }
+
+    /**
+     * Finds the start of the segment holding a character.
+     */
+    private int segmentStart(int position) {
+        Segment node = root;
+        int base = 0;
+        while (node != null) {
+            int start = base + length(node.left);
+            if (position < start) {
+                node = node.left;
+            } else if (position >= start + node.length) {
+                base = start + node.length;
+                node = node.right;
+            } else {
+                return start;
+            }
+        }
+        throw new IllegalStateException("No segment holds position " + position);
+    }
+
+    /**
+     * Finds the end (exclusive) of the segment holding a character.
+     */
+    private int segmentEnd(int position) {
+        int start = segmentStart(position);
+        Segment node = root;
+        int base = 0;
+        while (true) {
+            int nodeStart = base + length(node.left);
+            if (start < nodeStart) {
+                node = node.left;
+            } else if (start > nodeStart) {
+                base = nodeStart + node.length;
+                node = node.right;
+            } else {
+                return nodeStart + node.length;
+            }
+        }
+    }
+
+    /**
+     * Splits a treap into the segments starting before a position and the others.
+     * @param node The treap.
+     * @param at   The position, which must be a segment boundary.
+     * @param base Position of the first character of the treap.
+     * @return The two treaps.
+     */
+    private static Segment[] split(Segment node, int at, int base) {
+        if (node == null) {
+            return new Segment[2];
+        }
+        int start = base + length(node.left);
+        if (start < at) {
+            Segment[] parts = split(node.right, at, start + node.length);
+            node.right = parts[0];
+            parts[0] = node.update();
+            return parts;
+        }
+        Segment[] parts = split(node.left, at, base);
+        node.left = parts[1];
+        parts[1] = node.update();
+        return parts;
+    }
+
+    /**
+     * Concatenates two treaps, all segments of the first one coming first.
+     */
+    private static Segment merge(Segment first, Segment second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            return first.update();
+        }
+        second.left = merge(first, second.left);
+        return second.update();
+    }
+
+    private static int length(Segment node) {
+        return node == null ? 0 : node.totalLength;
+    }
+
+    /**
+     * A treap node: one sentence-aligned segment of the text.
+     */
+    private static final class Segment {
+
+        final int length;
+        final TextStatistics statistics;
+        final int priority;
+        Segment left;
+        Segment right;
+        // Aggregates of the subtree rooted here
+        int totalLength;
+        TextStatistics total;
+
+        Segment(int length, TextStatistics statistics, int priority) {
+            this.length = length;
+            this.statistics = statistics;
+            this.priority = priority;
+            this.totalLength = length;
+            this.total = statistics;
+        }
+
+        Segment update() {
+            totalLength = length(left) + length + length(right);
+            TextStatistics sum = left != null ? left.total.combine(statistics) : statistics;
+            total = right != null ? sum.combine(right.total) : sum;
+            return this;
+        }
+    }
+
+    /**
+     * Characters of the document, with a movable gap at the last edit position.
+     */
+    private static final class GapBuffer {
+
+        private char[] buffer = new char[INITIAL_CAPACITY];
+        private int gapStart;
+        private int gapEnd = INITIAL_CAPACITY;
+
+        int length() {
+            return buffer.length - (gapEnd - gapStart);
+        }
+
+        char charAt(int index) {
+            return index < gapStart ? buffer[index] : buffer[index + (gapEnd - gapStart)];
+        }
+
+        void replace(int offset, int length, CharSequence replacement) {
+            moveGap(offset);
+            gapEnd += length; // The deleted characters join the gap
+            int needed = replacement.length();
+            if (gapEnd - gapStart < needed) {
+                grow(needed);
+            }
+            for (int i = 0; i < needed; i++) {
+                buffer[gapStart++] = replacement.charAt(i);
+            }
+        }
+
+        /**
+         * Feeds a range of the text to a scanner, on either side of the gap.
+         */
+        void scan(TextScanner scanner, int start, int end) {
+            if (start < gapStart) {
+                int beforeGap = Math.min(end, gapStart);
+                scanner.accept(buffer, start, beforeGap - start);
+                start = beforeGap;
+            }
+            if (start < end) {
+                int gapLength = gapEnd - gapStart;
+                scanner.accept(buffer, start + gapLength, end - start);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(length())
+                    .append(buffer, 0, gapStart)
+                    .append(buffer, gapEnd, buffer.length - gapEnd)
+                    .toString();
+        }
+
+        private void moveGap(int position) {
+            if (position < gapStart) {
+                int count = gapStart - position;
+                System.arraycopy(buffer, position, buffer, gapEnd - count, count);
+                gapStart -= count;
+                gapEnd -= count;
+            } else if (position > gapStart) {
+                int count = position - gapStart;
+                System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+                gapStart += count;
+                gapEnd += count;
+            }
+        }
+
+        private void grow(int needed) {
+            int contentLength = length();
+            int capacity = Math.max(buffer.length * 2, contentLength + needed + INITIAL_CAPACITY);
+            char[] grown = new char[capacity];
+            int afterGap = buffer.length - gapEnd;
+            System.arraycopy(buffer, 0, grown, 0, gapStart);
+            System.arraycopy(buffer, gapEnd, grown, capacity - afterGap, afterGap);
+            buffer = grown;
+            gapEnd = capacity - afterGap;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package readability;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe histogram of durations in nanoseconds, in fixed memory whatever the number of
+ * recorded values.
+ * <p>
+ * Buckets are log-linear, like HdrHistogram with one significant digit: every power of two
+ * is split into {@value #SUB_BUCKETS} equal sub-buckets, so a value is placed in a bucket
+ * at most 1/{@value #SUB_BUCKETS} of its size wide, and values below {@value #SUB_BUCKETS}
+ * nanoseconds are exact. The {@value #BUCKET_COUNT} buckets cover every positive long.
+ * Recording is two array operations and a few shifts; the count, sum and maximum are
+ * striped so that concurrent recorders do not contend on them.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below SUB_BUCKETS get one bucket each, then SUB_BUCKETS per power of two up to 2^62
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one duration.
+     * @param nanos The duration in nanoseconds; negative values, from a clock going back, count as 0.
+     */
+    void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     * @param startNanos The reading taken when the measured operation started.
+     */
+    void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Takes a copy of the histogram. Values recorded meanwhile may be partly included.
+     * @return The snapshot.
+     */
+    Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, count.sum(), sum.sum(), max.get());
+    }
+
+    /**
+     * A point-in-time copy of a histogram.
+     * @param counts The number of values in each bucket.
+     * @param count  The number of recorded values.
+     * @param sum    The sum of the recorded values, in nanoseconds.
+     * @param max    The largest recorded value, in nanoseconds.
+     */
+    record Snapshot(long[] counts, long count, long sum, long max) {
+
+        /**
+         * Gets the upper bound of a bucket: every value counted in it is below the bound,
+         * and at or above the bound of the bucket before it.
+         * @param bucket The index of the bucket in {@link #counts()}.
+         * @return The exclusive upper bound in nanoseconds, {@link Long#MAX_VALUE} for the last bucket.
+         */
+        long upperBound(int bucket) {
+            return lowerBound(bucket + 1);
+        }
+
+        /**
+         * Estimates the value below which a given share of the recorded values fall.
+         * @param quantile The share, between 0 and 1.
+         * @return The middle of the bucket holding that value, in nanoseconds, never above
+         *         the maximum; 0 if nothing was recorded.
+         */
+        long valueAtQuantile(double quantile) {
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    long lower = lowerBound(i);
+                    return Math.min(lower + (lowerBound(i + 1) - lower - 1) / 2, max);
+                }
+            }
+            return max;
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        if (bucket >= BUCKET_COUNT) {
+            return Long.MAX_VALUE;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
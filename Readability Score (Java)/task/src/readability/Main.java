@@ -1,38 +1,124 @@
 package readability;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 
 public class Main {
+
+    private static final long METRICS_PERIOD_SECONDS = 10;
+
+    /** Exit status of a run that went through. */
+    static final int EXIT_OK = 0;
+    /** Exit status when an input, output, dictionary or port could not be used. */
+    static final int EXIT_IO_ERROR = 1;
+    /** Exit status of an unknown option or an invalid option value. */
+    static final int EXIT_USAGE = 2;
+
     public static void main(String[] args) {
+        int status = run(args);
+        // The service keeps running on its own threads after a successful start
+        if (status != EXIT_OK) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Runs the program as the command-line arguments ask.
+     * @param args The arguments given to main.
+     * @return The exit status: {@link #EXIT_OK}, {@link #EXIT_IO_ERROR} or {@link #EXIT_USAGE}.
+     */
+    private static int run(String[] args) {
+
+        // --- Command-Line Options ---
+        CommandLineOptions options;
+        try {
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(CommandLineOptions.USAGE);
+            return EXIT_USAGE;
+        }
+        if (options.isHelp()) {
+            System.out.println(CommandLineOptions.USAGE);
+            return EXIT_OK;
+        }
+        if (options.isCompileDictionary()) {
+            return compileDictionary(options.getDictionarySource(), options.getDictionary());
+        }
+
+        // --- Syllable Counting: Dictionary and Shared Cache ---
+        SyllableSource syllableSource = null;
+        if (options.getDictionary() != null) {
+            try {
+                syllableSource = SyllableDictionary.load(Path.of(options.getDictionary()));
+            } catch (IOException e) {
+                System.err.println("Error loading dictionary: " + options.getDictionary());
+                System.err.println(e.getMessage());
+                return EXIT_IO_ERROR;
+            }
+        }
+        if (options.getSyllableCacheSize() > 0) {
+            SyllableCache syllableCache = syllableSource != null
+                    ? new SyllableCache(options.getSyllableCacheSize(), syllableSource)
+                    : new SyllableCache(options.getSyllableCacheSize());
+            PipelineMetrics.watch(syllableCache);
+            syllableSource = syllableCache;
+        }
+
+        if (options.isServe()) {
+            List<MetricsExporter> metricsExporters = startMetrics(options);
+            if (metricsExporters == null) {
+                return EXIT_IO_ERROR;
+            }
+            return serve(options, syllableSource, metricsExporters);
+        }
 
         String filePath = "";
         // --- Input File Handling ---
-        if (args.length == 0) {
+        if (options.getInputs().isEmpty()) {
             System.err.println("Error: No input file path as a command-line argument.");
-            System.err.println("Usage: java readability.Main <path_to_file>");
+            System.err.println(CommandLineOptions.USAGE);
             filePath = "Readability Score (Java)/task/src/readability/in.txt";
         } else {
-            filePath = args[0];
+            filePath = options.getInputs().get(0);
+        }
+
+        // --- Non-Interactive Mode: Indices, Format or Batch Chosen Up Front ---
+        if (!options.isInteractive()) {
+            return scoreAll(options.getInputs().isEmpty() ? List.of(filePath) : options.getInputs(), options,
+                    syllableSource);
         }
 
 
         // --- Readability Calculation ---
         Readability readability;
         try {
-            readability = new Readability(filePath);
+            readability = new Readability(filePath, EnumSet.allOf(ReadabilityScoreMapping.IndexType.class),
+                    syllableSource);
         } catch (IOException e) {
             System.err.println("Error reading file: " + filePath);
             System.err.println(e.getMessage());
-            return;
+            return EXIT_IO_ERROR;
         } catch (Exception e) {
             System.err.println("An unexpected error occurred during readability calculation:");
             e.printStackTrace();
-            return;
+            return EXIT_IO_ERROR;
         }
 
         // --- Print Basic Stats ---
-        readability.printStats();
+        try {
+            ResultWriter.Text out = new ResultWriter.Text(System.out, readability.getIndices());
+            out.writeStats(readability, options.getEchoLimit());
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+            return EXIT_IO_ERROR;
+        }
 
         // --- User Input for Score Type ---
         Scanner scanner = new Scanner(System.in);
@@ -43,5 +129,204 @@ public class Main {
         readability.printReadabilityScore(indexType);
 
         scanner.close();
+        return EXIT_OK;
+    }
+
+    /**
+     * Scores every input without asking anything, writing through a single result writer.
+     * A single file in plain format gets the full report; otherwise one record is written
+     * per document, and directories, globs or archives are scored in batch.
+     * @param inputs         Files, directories, globs, archives or "-" for the standard input.
+     * @param options        The command-line options.
+     * @param syllableSource The source of per-word syllable counts shared by all documents, or null;
+     *                       the statistics of a cache are reported at the end.
+     * @return {@link #EXIT_OK}, or {@link #EXIT_IO_ERROR} if any input could not be scored or a result
+     *         could not be written; the other inputs are still scored.
+     */
+    private static int scoreAll(List<String> inputs, CommandLineOptions options, SyllableSource syllableSource) {
+        List<MetricsExporter> metricsExporters = startMetrics(options);
+        if (metricsExporters == null) {
+            return EXIT_IO_ERROR;
+        }
+        ResultFormat format = options.getFormat();
+        boolean report = format == ResultFormat.PLAIN && inputs.size() == 1 && !BatchScorer.isBatchInput(inputs.get(0));
+        ResultWriter out;
+        try {
+            out = format.newWriter(System.out, options.getIndices());
+        } catch (IOException e) {
+            System.err.println("Error writing results: " + e.getMessage());
+            metricsExporters.forEach(MetricsExporter::close);
+            return EXIT_IO_ERROR;
+        }
+
+        int status = EXIT_OK;
+        BatchScorer batchScorer = null;
+        try {
+            for (String input : inputs) {
+                if (BatchScorer.isBatchInput(input)) {
+                    if (batchScorer == null) {
+                        batchScorer = new BatchScorer(Runtime.getRuntime().availableProcessors(), out,
+                                options.getIndices(), syllableSource);
+                    }
+                    if (!scoreBatch(batchScorer, input)) {
+                        status = EXIT_IO_ERROR;
+                    }
+                    continue;
+                }
+                try {
+                    Readability readability = read(input, report && options.isEchoText(), options.getIndices(),
+                            syllableSource);
+                    if (report) {
+                        ResultWriter.Text text = (ResultWriter.Text) out;
+                        text.writeStats(readability, options.getEchoLimit());
+                        text.writeScores(readability, options.getIndices());
+                    } else {
+                        out.write(input, readability);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Error reading file: " + input);
+                    System.err.println(e.getMessage());
+                    status = EXIT_IO_ERROR;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = EXIT_IO_ERROR;
+        } finally {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Error writing results: " + e.getMessage());
+                status = EXIT_IO_ERROR;
+            }
+            if (batchScorer != null) {
+                try {
+                    batchScorer.shutdown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (batchScorer.getFailureCount() > 0) {
+                    status = EXIT_IO_ERROR;
+                }
+            }
+            if (syllableSource instanceof SyllableCache syllableCache) {
+                System.err.println("Syllable cache: " + syllableCache.stats());
+            }
+            metricsExporters.forEach(MetricsExporter::close);
+        }
+        return status;
+    }
+
+    /**
+     * Starts publishing the pipeline metrics as the options ask, on a local port and/or to a file.
+     * @param options The command-line options.
+     * @return The started exporters, possibly none, or null if one could not be started.
+     */
+    private static List<MetricsExporter> startMetrics(CommandLineOptions options) {
+        List<MetricsExporter> exporters = new ArrayList<>();
+        try {
+            if (options.getMetricsPort() >= 0) {
+                exporters.add(MetricsExporter.serve(PipelineMetrics.REGISTRY, options.getBindAddress(),
+                        options.getMetricsPort()));
+            }
+            if (options.getMetricsFile() != null) {
+                exporters.add(MetricsExporter.dump(PipelineMetrics.REGISTRY, Path.of(options.getMetricsFile()),
+                        METRICS_PERIOD_SECONDS));
+            }
+            return exporters;
+        } catch (IOException e) {
+            System.err.println("Error starting the metrics export");
+            System.err.println(e.getMessage());
+            exporters.forEach(MetricsExporter::close);
+            return null;
+        }
+    }
+
+    /**
+     * Runs the HTTP scoring service until the process is stopped.
+     * @param options          The command-line options, with the address and port to listen on.
+     * @param syllableSource   The source of per-word syllable counts shared by all requests, or null.
+     * @param metricsExporters The exporters of the metrics, closed when the service stops.
+     * @return {@link #EXIT_OK} once started, or {@link #EXIT_IO_ERROR} if the port cannot be bound.
+     */
+    private static int serve(CommandLineOptions options, SyllableSource syllableSource,
+                             List<MetricsExporter> metricsExporters) {
+        int port = options.getServePort();
+        ScoringServer server;
+        try {
+            server = new ScoringServer(options.getBindAddress(), port, Runtime.getRuntime().availableProcessors(),
+                    syllableSource);
+        } catch (IOException e) {
+            System.err.println("Error starting the server on " + options.getBindAddress().getHostAddress() + " port " + port);
+            System.err.println(e.getMessage());
+            metricsExporters.forEach(MetricsExporter::close);
+            return EXIT_IO_ERROR;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            metricsExporters.forEach(MetricsExporter::close);
+        }));
+        server.start();
+        System.out.println("Listening on " + server.getAddress().getAddress().getHostAddress() + " port "
+                + server.getPort() + " (POST /score, GET /health, GET /metrics)");
+        return EXIT_OK;
+    }
+
+    /**
+     * Compiles a text pronunciation dictionary for --dictionary.
+     * @param source Path to the text dictionary.
+     * @param output Path of the compiled dictionary.
+     * @return {@link #EXIT_OK}, or {@link #EXIT_IO_ERROR} if the dictionary cannot be read, parsed or written.
+     */
+    private static int compileDictionary(String source, String output) {
+        try {
+            SyllableDictionary.Summary summary = SyllableDictionary.compile(Path.of(source), Path.of(output));
+            System.out.println("Compiled " + summary.words() + " words into " + output
+                    + (summary.skipped() > 0 ? " (skipped " + summary.skipped() + " entries that cannot be looked up)" : ""));
+            return EXIT_OK;
+        } catch (IOException e) {
+            System.err.println("Error compiling dictionary: " + source);
+            System.err.println(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+        return EXIT_IO_ERROR;
+    }
+
+    /**
+     * Scores one file or the standard input.
+     * @param input    The file path, or "-" for the standard input.
+     * @param keepText Whether the text must be retained for echoing.
+     * @param indices        The indices to compute; nothing else is counted.
+     * @param syllableSource The source of per-word syllable counts, or null for the heuristic alone.
+     * @return The Readability of the input.
+     * @throws IOException If the input cannot be read.
+     */
+    private static Readability read(String input, boolean keepText, Set<ReadabilityScoreMapping.IndexType> indices,
+                                    SyllableSource syllableSource) throws IOException {
+        if (CommandLineOptions.STDIN.equals(input)) {
+            return Readability.fromInputStream(input, System.in, indices, syllableSource);
+        }
+        return keepText
+                ? new Readability(input, indices, syllableSource)
+                : Readability.fromMappedFile(input, indices, syllableSource);
+    }
+
+    /**
+     * Scores every file of a directory, glob or archive, writing one line per document.
+     * @param batchScorer The batch scorer to use.
+     * @param pathOrGlob  The directory, glob pattern or archive.
+     * @return False if the directory tree or the archive could not be read.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    private static boolean scoreBatch(BatchScorer batchScorer, String pathOrGlob) throws InterruptedException {
+        try {
+            batchScorer.scoreAll(pathOrGlob);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error reading batch input: " + pathOrGlob);
+            System.err.println(e.getMessage());
+            return false;
+        }
     }
 }
@@ -0,0 +1,69 @@
+package readability;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Feeds a file to a {@link TextScanner} through fixed-size memory-mapped windows.
+ * <p>
+ * Each window is mapped read-only and scanned through {@link ByteInput}, so the text is read
+ * straight from the OS page cache and never held on the heap as a whole. ASCII bytes go to
+ * the scanner directly; anything else is decoded into a small reusable char buffer. A
+ * multi-byte character cut by the end of a window is simply decoded again from the start
+ * of the next one.
+ */
+final class MappedFileInput {
+
+    /** Size of each mapped window in bytes. */
+    static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private MappedFileInput() {
+    }
+
+    /**
+     * Scans a whole file, decoded with the default charset, and finishes the scanner.
+     * @param path    Path to the file.
+     * @param scanner The scanner to feed.
+     * @return The finished scanner.
+     * @throws IOException If the file cannot be mapped or read.
+     */
+    static TextScanner scan(Path path, TextScanner scanner) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            scan(channel, 0, channel.size(), scanner);
+        }
+        return scanner.finish();
+    }
+
+    /**
+     * Scans a byte range of a file, decoded with the default charset, without finishing the scanner.
+     * The range must start at a character boundary.
+     * @param channel The open file; only positional operations are used, so it may be shared.
+     * @param start   Offset of the first byte (inclusive).
+     * @param end     Offset of the last byte (exclusive).
+     * @param scanner The scanner to feed.
+     * @throws IOException If the range cannot be mapped or read.
+     */
+    static void scan(FileChannel channel, long start, long end, TextScanner scanner) throws IOException {
+        // Same charset and error handling as FileReader
+        CharsetDecoder decoder = ByteInput.newDecoder();
+        CharBuffer chars = ByteInput.newCharBuffer();
+
+        long position = start;
+        boolean endOfInput = start == end;
+        while (!endOfInput) {
+            long windowSize = Math.min(WINDOW_SIZE, end - position);
+            endOfInput = position + windowSize == end;
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            ByteInput.scan(decoder, window, chars, endOfInput, scanner);
+            position += window.position();
+        }
+
+        // Flush whatever the decoder still holds
+        ByteInput.flush(decoder, chars, scanner);
+    }
+}
@@ -0,0 +1,145 @@
+package readability;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the snapshots of a {@link MetricsRegistry} in the Prometheus text format, either
+ * on {@code GET /metrics} of an HTTP port, for a scraper, or by rewriting a file on a
+ * timer, e.g. for the textfile collector of the node exporter.
+ * <p>
+ * The port is bound to the address it is given, the loopback address unless the command line
+ * asks for another, like the scoring service. The file is replaced atomically where the
+ * file system allows it, so a reader never sees half a snapshot; it is written once more when
+ * the exporter is closed, so a batch run leaves its final numbers behind.
+ */
+final class MetricsExporter implements AutoCloseable {
+
+    /** Media type of the Prometheus text exposition format. */
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final int BACKLOG = 16;
+
+    private final MetricsRegistry registry;
+    private final HttpServer server; // Null when dumping to a file
+    private final ScheduledExecutorService timer; // Null when serving
+    private final Path file;
+
+    private MetricsExporter(MetricsRegistry registry, HttpServer server, ScheduledExecutorService timer, Path file) {
+        this.registry = registry;
+        this.server = server;
+        this.timer = timer;
+        this.file = file;
+    }
+
+    /**
+     * Serves the metrics on {@code http://address:port/metrics} until closed.
+     * @param registry The metrics to serve.
+     * @param address  The address to listen on, e.g. the loopback address.
+     * @param port     The port to listen on, or 0 for any free port.
+     * @return The started exporter.
+     * @throws IOException If the port cannot be bound.
+     */
+    static MetricsExporter serve(MetricsRegistry registry, InetAddress address, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(address, port), BACKLOG);
+        server.createContext("/metrics", handler(registry));
+        server.start();
+        return new MetricsExporter(registry, server, null, null);
+    }
+
+    /**
+     * Writes the metrics to a file now and then at a fixed period until closed.
+     * @param registry      The metrics to write.
+     * @param file          The file to replace with each snapshot.
+     * @param periodSeconds Seconds between two snapshots.
+     * @return The started exporter.
+     * @throws IOException If the first snapshot cannot be written.
+     */
+    static MetricsExporter dump(MetricsRegistry registry, Path file, long periodSeconds) throws IOException {
+        MetricsExporter exporter = new MetricsExporter(registry, null, ThreadPools.newTimer(), file);
+        exporter.writeFile();
+        exporter.timer.scheduleAtFixedRate(exporter::writeFileQuietly, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        return exporter;
+    }
+
+    /**
+     * Creates a handler answering {@code GET} with a snapshot, for any HTTP server.
+     * @param registry The metrics to serve.
+     * @return The handler.
+     */
+    static HttpHandler handler(MetricsRegistry registry) {
+        return exchange -> {
+            try (exchange) {
+                if (!"GET".equals(exchange.getRequestMethod())) {
+                    send(exchange, 405, "Use GET.");
+                    return;
+                }
+                send(exchange, 200, registry.scrape());
+            }
+        };
+    }
+
+    /**
+     * Gets the port the metrics are served on, useful when started on port 0.
+     * @return The bound port, or -1 when dumping to a file.
+     */
+    int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    /**
+     * Stops serving, or stops the timer and writes the final snapshot.
+     */
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        } else {
+            timer.shutdownNow();
+            writeFileQuietly();
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    private synchronized void writeFile() throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temporary, registry.scrape(), StandardCharsets.UTF_8);
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void writeFileQuietly() {
+        try {
+            writeFile();
+        } catch (IOException e) {
+            // The next snapshot will try again; scoring must not fail because of metrics
+            System.err.println("Error writing metrics: " + e.getMessage());
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package readability;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Named metrics of a process, rendered on demand in the Prometheus text exposition format.
+ * <p>
+ * Counters are {@link LongAdder}s, so hot paths only touch a striped cell; gauges and
+ * counters kept elsewhere, such as the statistics of a {@link SyllableCache}, are read
+ * through a supplier when a snapshot is taken; latencies go to {@link LatencyHistogram}s
+ * and are exposed as cumulative histograms in seconds, so that a scraper can aggregate them
+ * across processes and compute quantiles over any time window. A metric is registered
+ * once and recorded into without any lookup; registering the same name and labels again
+ * returns the existing counter or histogram, or replaces a supplier.
+ */
+final class MetricsRegistry {
+
+    // The exported buckets are bounded by powers of two nanoseconds, from about 1 us to 34 s: these are
+    // also bucket boundaries of LatencyHistogram, so the coarser cumulative counts are exact
+    private static final int MIN_BOUND_EXPONENT = 10;
+    private static final int MAX_BOUND_EXPONENT = 35;
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM;
+
+        String prometheusName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Metrics sharing one name, told apart by their labels.
+     * @param name     The metric name.
+     * @param help     The description.
+     * @param type     The metric type.
+     * @param children The metrics by their rendered labels, "" when there are none.
+     */
+    private record Family(String name, String help, Type type, Map<String, Object> children) {
+    }
+
+    private final Map<String, Family> families = new LinkedHashMap<>();
+
+    /**
+     * Registers a counter.
+     * @param name The metric name, ending in "_total" by convention.
+     * @param help The description.
+     * @return The counter to increment.
+     */
+    LongAdder counter(String name, String help) {
+        return (LongAdder) register(name, help, Type.COUNTER, "", LongAdder::new, false);
+    }
+
+    /**
+     * Registers a counter kept elsewhere.
+     * @param name  The metric name, ending in "_total" by convention.
+     * @param help  The description.
+     * @param value Reads the current count.
+     */
+    void counter(String name, String help, LongSupplier value) {
+        register(name, help, Type.COUNTER, "", () -> value, true);
+    }
+
+    /**
+     * Registers a gauge.
+     * @param name  The metric name.
+     * @param help  The description.
+     * @param value Reads the current value.
+     */
+    void gauge(String name, String help, DoubleSupplier value) {
+        register(name, help, Type.GAUGE, "", () -> value, true);
+    }
+
+    /**
+     * Registers one latency histogram of a family distinguished by a label.
+     * @param name       The metric name, ending in "_seconds" by convention.
+     * @param help       The description.
+     * @param label      The label name.
+     * @param labelValue The label value of this histogram.
+     * @return The histogram to record into, in nanoseconds.
+     */
+    LatencyHistogram latency(String name, String help, String label, String labelValue) {
+        return (LatencyHistogram) register(name, help, Type.HISTOGRAM, label + "=\"" + labelValue + '"',
+                LatencyHistogram::new, false);
+    }
+
+    /**
+     * Removes a metric with all of its labelled children, e.g. the gauges of a component that
+     * was shut down, so that they are no longer exported. Does nothing for an unknown name.
+     * @param name The metric name.
+     */
+    synchronized void unregister(String name) {
+        families.remove(name);
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format, version 0.0.4.
+     * @return The snapshot, one line per sample.
+     */
+    String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Family family : snapshotFamilies()) {
+            sb.append("# HELP ").append(family.name()).append(' ').append(family.help()).append('\n');
+            sb.append("# TYPE ").append(family.name()).append(' ').append(family.type().prometheusName()).append('\n');
+            family.children().forEach((labels, metric) -> appendSamples(sb, family.name(), labels, metric));
+        }
+        return sb.toString();
+    }
+
+    // --- Private Helper Methods ---
+
+    private synchronized Object register(String name, String help, Type type, String labels,
+                                         Supplier<Object> factory, boolean replace) {
+        Family family = families.computeIfAbsent(name, key -> new Family(name, help, type, new LinkedHashMap<>()));
+        if (family.type() != type) {
+            throw new IllegalArgumentException(name + " is already registered as a " + family.type().prometheusName());
+        }
+        if (replace) {
+            Object metric = factory.get();
+            family.children().put(labels, metric);
+            return metric;
+        }
+        return family.children().computeIfAbsent(labels, key -> factory.get());
+    }
+
+    /**
+     * Copies the families and their children, so that rendering does not hold the lock
+     * while suppliers run.
+     */
+    private synchronized Family[] snapshotFamilies() {
+        Family[] copy = new Family[families.size()];
+        int i = 0;
+        for (Family family : families.values()) {
+            copy[i++] = new Family(family.name(), family.help(), family.type(), new LinkedHashMap<>(family.children()));
+        }
+        return copy;
+    }
+
+    private static void appendSamples(StringBuilder sb, String name, String labels, Object metric) {
+        if (metric instanceof LongAdder adder) {
+            appendSample(sb, name, labels, adder.sum());
+        } else if (metric instanceof LongSupplier supplier) {
+            appendSample(sb, name, labels, supplier.getAsLong());
+        } else if (metric instanceof DoubleSupplier supplier) {
+            appendSample(sb, name, labels, supplier.getAsDouble());
+        } else if (metric instanceof LatencyHistogram histogram) {
+            appendHistogram(sb, name, labels, histogram.snapshot());
+        }
+    }
+
+    /**
+     * Appends the cumulative buckets of a histogram, then its sum and count. A bucket counts
+     * the values below its bound, which only differs from Prometheus' "less or equal" for a
+     * duration of exactly that many nanoseconds.
+     */
+    private static void appendHistogram(StringBuilder sb, String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long[] counts = snapshot.counts();
+        long cumulative = 0;
+        int bucket = 0;
+        for (int exponent = MIN_BOUND_EXPONENT; exponent <= MAX_BOUND_EXPONENT; exponent++) {
+            long bound = 1L << exponent;
+            for (; bucket < counts.length && snapshot.upperBound(bucket) <= bound; bucket++) {
+                cumulative += counts[bucket];
+            }
+            appendSample(sb, name + "_bucket", prefix + "le=\"" + bound / NANOS_PER_SECOND + '"', cumulative);
+        }
+        for (; bucket < counts.length; bucket++) {
+            cumulative += counts[bucket];
+        }
+        // The count is taken from the buckets, so that it always equals the +Inf bucket
+        appendSample(sb, name + "_bucket", prefix + "le=\"+Inf\"", cumulative);
+        appendSample(sb, name + "_sum", labels, snapshot.sum() / NANOS_PER_SECOND);
+        appendSample(sb, name + "_count", labels, cumulative);
+    }
+
+    private static void appendSample(StringBuilder sb, String name, String labels, long value) {
+        appendName(sb, name, labels).append(value).append('\n');
+    }
+
+    private static void appendSample(StringBuilder sb, String name, String labels, double value) {
+        appendName(sb, name, labels);
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    private static StringBuilder appendName(StringBuilder sb, String name, String labels) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        return sb.append(' ');
+    }
+}
@@ -0,0 +1,123 @@
+package readability;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scans one large file on a {@link ForkJoinPool}.
+ * <p>
+ * The file is split recursively at sentence boundaries (right after a terminator run,
+ * before a character that is not a terminator), each chunk is scanned through mapped
+ * windows by {@link MappedFileInput}, and the per-chunk counts are merged. Since no
+ * word or sentence ever straddles two chunks, the result is identical to a sequential scan.
+ * <p>
+ * Boundaries are searched for in raw bytes, which is only safe for charsets where ASCII
+ * bytes always stand for themselves; other charsets, and gzip-compressed files, which
+ * cannot be split, are scanned sequentially.
+ */
+final class ParallelFileInput {
+
+    /** Chunks smaller than this are not split any further. */
+    static final long MIN_CHUNK_SIZE = 8L * 1024 * 1024;
+
+    private static final int SEARCH_BUFFER_SIZE = 64 * 1024;
+
+    private ParallelFileInput() {
+    }
+
+    /**
+     * Scans a whole file, decoded with the default charset.
+     * @param path           Path to the file.
+     * @param pool           The pool to run the chunks on.
+     * @param countSyllables Whether to count syllables and polysyllables.
+     * @return The merged statistics of all chunks.
+     * @throws IOException If the file cannot be mapped or read.
+     */
+    static TextStatistics scan(Path path, ForkJoinPool pool, boolean countSyllables) throws IOException {
+        if (GzipInput.isGzip(path)) {
+            return GzipInput.scan(path, new TextScanner(countSyllables)).getStatistics();
+        }
+        if (!ByteInput.isAsciiTransparent(Charset.defaultCharset())) {
+            return MappedFileInput.scan(path, new TextScanner(countSyllables)).getStatistics();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return pool.invoke(new ChunkTask(channel, 0, channel.size(), countSyllables));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Finds the first sentence boundary in a byte range, at a {@link TextScanner.SplitPoints split point}
+     * of the text. ASCII bytes are the characters themselves, and a split point follows
+     * whitespace, which a UTF-8 continuation byte never does.
+     * @return The offset of the first byte at a split point, or {@code end} if there is none.
+     */
+    private static long findBoundary(FileChannel channel, long from, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SEARCH_BUFFER_SIZE);
+        TextScanner.SplitPoints splitPoints = new TextScanner.SplitPoints();
+        long position = from;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(SEARCH_BUFFER_SIZE, end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (splitPoints.isSplitBefore((char) (buffer.get(i) & 0xFF))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    /**
+     * Scans a byte range, splitting it in two at the first sentence boundary past its middle.
+     */
+    @SuppressWarnings("serial") // Tasks never leave the pool they were forked on
+    private static final class ChunkTask extends RecursiveTask<TextStatistics> {
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final boolean countSyllables;
+
+        ChunkTask(FileChannel channel, long start, long end, boolean countSyllables) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.countSyllables = countSyllables;
+        }
+
+        @Override
+        protected TextStatistics compute() {
+            try {
+                long split = end - start > MIN_CHUNK_SIZE
+                        ? findBoundary(channel, start + (end - start) / 2, end)
+                        : end;
+                if (split >= end) {
+                    TextScanner scanner = new TextScanner(countSyllables);
+                    MappedFileInput.scan(channel, start, end, scanner);
+                    return scanner.finish().getStatistics();
+                }
+                ChunkTask right = new ChunkTask(channel, split, end, countSyllables);
+                right.fork();
+                TextStatistics left = new ChunkTask(channel, start, split, countSyllables).compute();
+                return left.combine(right.join());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
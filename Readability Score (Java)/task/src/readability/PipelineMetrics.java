@@ -0,0 +1,99 @@
+package readability;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of the scoring pipeline, shared by every document of the process.
+ * <p>
+ * They are always on: recording a stage costs a {@link System#nanoTime()} reading and a
+ * histogram update per document, against the scan of the whole text. Throughput is kept as
+ * counters of documents and input bytes, for {@code rate()} over any window, and as rates
+ * since the process started; each stage of {@link ScoringEvents} gets a latency histogram.
+ * Components with state worth watching, such as the syllable cache or the queues of the batch
+ * scorer and the server, register gauges on {@link #REGISTRY} when they are created.
+ */
+final class PipelineMetrics {
+
+    /** Every metric of the process. */
+    static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    /** The stages of the pipeline, as in {@link ScoringEvents}. */
+    enum Stage {
+        READ, SCAN, SCORE, OUTPUT
+    }
+
+    private static final long START_NANOS = System.nanoTime();
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private static final LongAdder DOCUMENTS = REGISTRY.counter("readability_documents_total",
+            "Documents scanned");
+    private static final LongAdder INPUT_BYTES = REGISTRY.counter("readability_input_bytes_total",
+            "Size of the documents scanned, in bytes");
+    private static final LongAdder SKIPPED = REGISTRY.counter("readability_documents_skipped_total",
+            "Documents skipped because they were binary or could not be read");
+    private static final LatencyHistogram[] STAGE_LATENCIES = new LatencyHistogram[Stage.values().length];
+
+    static {
+        REGISTRY.gauge("readability_documents_per_second",
+                "Documents scanned per second since the process started", () -> perSecond(DOCUMENTS));
+        REGISTRY.gauge("readability_input_bytes_per_second",
+                "Bytes scanned per second since the process started", () -> perSecond(INPUT_BYTES));
+        for (Stage stage : Stage.values()) {
+            STAGE_LATENCIES[stage.ordinal()] = REGISTRY.latency("readability_stage_duration_seconds",
+                    "Time spent in each stage of the scoring pipeline, per document", "stage",
+                    stage.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private PipelineMetrics() {
+    }
+
+    /**
+     * Records the time elapsed since a stage started.
+     * @param stage      The stage.
+     * @param startNanos The {@link System#nanoTime()} reading taken when it started.
+     */
+    static void recordStage(Stage stage, long startNanos) {
+        STAGE_LATENCIES[stage.ordinal()].recordSince(startNanos);
+    }
+
+    /**
+     * Records a scanned document.
+     * @param startNanos The {@link System#nanoTime()} reading taken when the scan started.
+     * @param bytes      The size of the document, or 0 if unknown.
+     */
+    static void documentScanned(long startNanos, long bytes) {
+        recordStage(Stage.SCAN, startNanos);
+        DOCUMENTS.increment();
+        INPUT_BYTES.add(bytes);
+    }
+
+    static void documentSkipped() {
+        SKIPPED.increment();
+    }
+
+    /**
+     * Exposes the statistics of a syllable cache, replacing any cache registered before.
+     * @param cache The cache shared by the scanners of the process.
+     */
+    static void watch(SyllableCache cache) {
+        REGISTRY.counter("readability_syllable_cache_hits_total", "Syllable cache lookups answered from the cache",
+                () -> cache.stats().hits());
+        REGISTRY.counter("readability_syllable_cache_misses_total", "Syllable cache lookups that went to the loader",
+                () -> cache.stats().misses());
+        REGISTRY.counter("readability_syllable_cache_evictions_total", "Words evicted from the syllable cache",
+                () -> cache.stats().evictions());
+        REGISTRY.gauge("readability_syllable_cache_hit_ratio", "Share of syllable cache lookups answered from the cache",
+                () -> cache.stats().hitRate());
+        REGISTRY.gauge("readability_syllable_cache_entries", "Words in the syllable cache",
+                () -> cache.stats().size());
+    }
+
+    // --- Private Helper Methods ---
+
+    private static double perSecond(LongAdder counter) {
+        double seconds = (System.nanoTime() - START_NANOS) / NANOS_PER_SECOND;
+        return seconds > 0 ? counter.sum() / seconds : 0;
+    }
+}
@@ -1,21 +1,30 @@
 package readability;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class Readability {
 
-    private final String text;
-    private final List<String> sentences;
-    private final List<String> words;
-    private final int characterCount;
-    private final int syllableCount;
-    private final int polysyllableCount;
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    private static final Set<ReadabilityScoreMapping.IndexType> ALL_INDICES =
+            Collections.unmodifiableSet(EnumSet.allOf(ReadabilityScoreMapping.IndexType.class));
+
+    private final String document; // Name of the input, null when the caller gave none
+    private final long byteSize; // File size, or bytes read from a stream
+    private final String text; // Null when the text was streamed rather than retained
+    private String normalisedText; // Built lazily, only when the text is requested
+    private final TextStatistics statistics;
+    private final Set<ReadabilityScoreMapping.IndexType> indices; // The indices computed for this text
+    private final Set<TextMetric> metrics; // The counts those indices need
 
     // Scores
     private double ariScore;
@@ -23,323 +32,530 @@ public class Readability {
     private double smogScore;
     private double clScore;
 
-    // Age/Grade Mappings
-    private final ReadabilityScoreMapping scoreMapping;
-
     /**
      * Constructor: Reads text from file and calculates all necessary metrics.
+     * Gzip-compressed files are recognised by their magic bytes and decompressed on the fly.
      * @param filePath Path to the input text file.
      * @throws IOException If there's an error reading the file.
      */
     public Readability(String filePath) throws IOException {
-        this.text = readTextFromFile(filePath);
-        this.sentences = calculateSentences(this.text);
-        this.words = calculateWords(this.sentences);
-        this.characterCount = calculateCharacters(this.text);
-        int[] syllableCounts = calculateSyllablesAndPolysyllables(this.words);
-        this.syllableCount = syllableCounts[0];
-        this.polysyllableCount = syllableCounts[1];
-        this.scoreMapping = new ReadabilityScoreMapping(); // Initialise mappings
+        this(filePath, ALL_INDICES);
+    }
 
-        // Calculate all scores upon initialisation
-        calculateAllScores();
+    /**
+     * Constructor: Reads text from file and calculates only what the given indices need.
+     * @param filePath Path to the input text file.
+     * @param indices  The indices to compute; syllables are not counted unless one needs them.
+     * @throws IOException If there's an error reading the file.
+     */
+    public Readability(String filePath, Set<ReadabilityScoreMapping.IndexType> indices) throws IOException {
+        this(filePath, indices, null);
     }
 
-    // --- Getters for Basic Metrics ---
+    /**
+     * Constructor: Reads text from file, counting syllables with the given source.
+     * @param filePath       Path to the input text file.
+     * @param indices        The indices to compute.
+     * @param syllableSource The source of per-word syllable counts, or null for the heuristic alone.
+     * @throws IOException If there's an error reading the file.
+     */
+    Readability(String filePath, Set<ReadabilityScoreMapping.IndexType> indices, SyllableSource syllableSource)
+            throws IOException {
+        this(filePath, Files.size(Path.of(filePath)), readTextFromFile(filePath), null, indices, syllableSource);
+    }
 
-    public String getText() {
-        return text;
+    /**
+     * Builds the metrics from either a retained text or statistics that were already counted.
+     * @param document       The name of the input, or null.
+     * @param byteSize       The size of the input in bytes, or 0 if unknown.
+     * @param text           The retained text, or null if the text was streamed.
+     * @param statistics     The counts of the text, or null to scan the given text.
+     * @param indices        The indices to compute.
+     * @param syllableSource The source of per-word syllable counts when scanning, or null.
+     */
+    private Readability(String document, long byteSize, String text, TextStatistics statistics,
+                        Set<ReadabilityScoreMapping.IndexType> indices, SyllableSource syllableSource) {
+        Set<ReadabilityScoreMapping.IndexType> computed = EnumSet.noneOf(ReadabilityScoreMapping.IndexType.class);
+        computed.addAll(indices);
+        this.document = document;
+        this.byteSize = byteSize;
+        this.indices = Collections.unmodifiableSet(computed);
+        this.metrics = TextMetric.requiredBy(indices);
+        if (statistics == null) {
+            // Count sentences, words, characters and, if needed, syllables in a single pass over the text
+            ScoringEvents.ScanEvent event = new ScoringEvents.ScanEvent();
+            event.begin();
+            long start = System.nanoTime();
+            statistics = newScanner(indices, syllableSource).accept(text).finish().getStatistics();
+            endScan(event, start, document, byteSize, statistics, indices);
+        }
+        this.text = text;
+        this.statistics = statistics;
+
+        // Calculate the requested scores upon initialisation
+        calculateScores();
     }
 
-    public int getSentenceCount() {
-        return sentences.size();
+    /**
+     * Scores a file read through memory-mapped windows, without holding the text on the heap.
+     * Suited to very large files; the text itself is not retained. A gzip-compressed file
+     * cannot be mapped, so it is decompressed while it streams into the scanner instead.
+     * @param filePath Path to the input text file.
+     * @return The Readability of the file.
+     * @throws IOException If there's an error reading the file.
+     */
+    public static Readability fromMappedFile(String filePath) throws IOException {
+        return fromMappedFile(filePath, ALL_INDICES);
     }
 
-    public int getWordCount() {
-        return words.size();
+    /**
+     * Scores a file read through memory-mapped windows, computing only the given indices.
+     * @param filePath Path to the input text file.
+     * @param indices  The indices to compute.
+     * @return The Readability of the file.
+     * @throws IOException If there's an error reading the file.
+     */
+    public static Readability fromMappedFile(String filePath, Set<ReadabilityScoreMapping.IndexType> indices)
+            throws IOException {
+        return fromMappedFile(filePath, indices, null);
     }
 
-    public int getCharacterCount() {
-        return characterCount;
+    /**
+     * Scores a file read through memory-mapped windows, counting syllables with the given source.
+     * @param filePath       Path to the input text file.
+     * @param indices        The indices to compute.
+     * @param syllableSource The source of per-word syllable counts, or null for the heuristic alone.
+     * @return The Readability of the file.
+     * @throws IOException If there's an error reading the file.
+     */
+    static Readability fromMappedFile(String filePath, Set<ReadabilityScoreMapping.IndexType> indices,
+                                      SyllableSource syllableSource) throws IOException {
+        Path path = Path.of(filePath);
+        ScoringEvents.ScanEvent event = new ScoringEvents.ScanEvent();
+        event.begin();
+        long start = System.nanoTime();
+        TextScanner scanner = newScanner(indices, syllableSource);
+        TextScanner scanned = GzipInput.isGzip(path)
+                ? GzipInput.scan(path, scanner)
+                : MappedFileInput.scan(path, scanner);
+        long byteSize = Files.size(path);
+        endScan(event, start, filePath, byteSize, scanned.getStatistics(), indices);
+        return new Readability(filePath, byteSize, null, scanned.getStatistics(), indices, null);
     }
 
-    public int getSyllableCount() {
-        return syllableCount;
+    /**
+     * Scores a single large file on the common fork-join pool. The file is split at sentence
+     * boundaries, chunks are scanned in parallel and their counts merged, so the result is
+     * identical to the sequential path. The text itself is not retained. A gzip-compressed
+     * file cannot be split, so it is decompressed and scanned sequentially.
+     * @param filePath Path to the input text file.
+     * @return The Readability of the file.
+     * @throws IOException If there's an error reading the file.
+     */
+    public static Readability fromFileParallel(String filePath) throws IOException {
+        return fromFileParallel(filePath, ForkJoinPool.commonPool());
     }
 
-    public int getPolysyllableCount() {
-        return polysyllableCount;
+    /**
+     * Scores a single large file on the given fork-join pool.
+     * @param filePath Path to the input text file.
+     * @param pool     The pool to scan the chunks on.
+     * @return The Readability of the file.
+     * @throws IOException If there's an error reading the file.
+     */
+    public static Readability fromFileParallel(String filePath, ForkJoinPool pool) throws IOException {
+        return fromFileParallel(filePath, pool, ALL_INDICES);
     }
 
-    // --- Getters for Readability Scores ---
+    /**
+     * Scores a single large file on the given fork-join pool, computing only the given indices.
+     * @param filePath Path to the input text file.
+     * @param pool     The pool to scan the chunks on.
+     * @param indices  The indices to compute.
+     * @return The Readability of the file.
+     * @throws IOException If there's an error reading the file.
+     */
+    public static Readability fromFileParallel(String filePath, ForkJoinPool pool,
+                                               Set<ReadabilityScoreMapping.IndexType> indices) throws IOException {
+        boolean countSyllables = TextMetric.needsSyllables(TextMetric.requiredBy(indices));
+        Path path = Path.of(filePath);
+        ScoringEvents.ScanEvent event = new ScoringEvents.ScanEvent();
+        event.begin();
+        long start = System.nanoTime();
+        TextStatistics statistics = ParallelFileInput.scan(path, pool, countSyllables);
+        long byteSize = Files.size(path);
+        endScan(event, start, filePath, byteSize, statistics, indices);
+        return new Readability(filePath, byteSize, null, statistics, indices, null);
+    }
 
-    public double getAriScore() {
-        return ariScore;
+    /**
+     * Scores a character stream read in fixed-size chunks, using constant memory.
+     * Sentences and words may span chunk boundaries; the text itself is not retained.
+     * The reader is read to the end but not closed.
+     * @param reader The text to score.
+     * @return The Readability of the streamed text.
+     * @throws IOException If there's an error reading the stream.
+     */
+    public static Readability fromReader(Reader reader) throws IOException {
+        return fromReader(reader, ALL_INDICES);
     }
 
-    public double getFkScore() {
-        return fkScore;
+    /**
+     * Scores a character stream in constant memory, computing only the given indices.
+     * The reader is read to the end but not closed.
+     * @param reader  The text to score.
+     * @param indices The indices to compute.
+     * @return The Readability of the streamed text.
+     * @throws IOException If there's an error reading the stream.
+     */
+    public static Readability fromReader(Reader reader, Set<ReadabilityScoreMapping.IndexType> indices)
+            throws IOException {
+        return fromReader(reader, indices, null);
     }
 
-    public double getSmogScore() {
-        return smogScore;
+    /**
+     * Scores a character stream in constant memory, counting syllables with the given source.
+     * The reader is read to the end but not closed.
+     * @param reader         The text to score.
+     * @param indices        The indices to compute.
+     * @param syllableSource The source of per-word syllable counts, or null for the heuristic alone.
+     * @return The Readability of the streamed text.
+     * @throws IOException If there's an error reading the stream.
+     */
+    static Readability fromReader(Reader reader, Set<ReadabilityScoreMapping.IndexType> indices,
+                                  SyllableSource syllableSource) throws IOException {
+        ScoringEvents.ScanEvent event = new ScoringEvents.ScanEvent();
+        event.begin();
+        long start = System.nanoTime();
+        TextScanner scanner = newScanner(indices, syllableSource);
+        char[] buffer = new char[STREAM_BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            scanner.accept(buffer, 0, read);
+        }
+        TextStatistics statistics = scanner.finish().getStatistics();
+        endScan(event, start, null, 0, statistics, indices);
+        return new Readability(null, 0, null, statistics, indices, null);
     }
 
-    public double getClScore() {
-        return clScore;
+    /**
+     * Scores a byte stream decoded with the default charset, using constant memory.
+     * The stream is read to the end but not closed.
+     * @param in The text to score.
+     * @return The Readability of the streamed text.
+     * @throws IOException If there's an error reading the stream.
+     */
+    public static Readability fromInputStream(InputStream in) throws IOException {
+        return fromInputStream(in, ALL_INDICES);
     }
 
-    // --- Private Helper Methods for Calculation ---
+    /**
+     * Scores a byte stream decoded with the default charset, computing only the given indices.
+     * The stream is read to the end but not closed.
+     * @param in      The text to score.
+     * @param indices The indices to compute.
+     * @return The Readability of the streamed text.
+     * @throws IOException If there's an error reading the stream.
+     */
+    public static Readability fromInputStream(InputStream in, Set<ReadabilityScoreMapping.IndexType> indices)
+            throws IOException {
+        return fromInputStream(null, in, indices, null);
+    }
 
     /**
-     * Reads the entire content of a file into a string.
-     * @param filePath Path to the file.
-     * @return String content of the file.
-     * @throws IOException If reading fails.
+     * Scores a byte stream decoded with the default charset, counting syllables with the given source.
+     * The stream is read to the end but not closed.
+     * @param document       The name of the input, reported in recordings, or null.
+     * @param in             The text to score.
+     * @param indices        The indices to compute.
+     * @param syllableSource The source of per-word syllable counts, or null for the heuristic alone.
+     * @return The Readability of the streamed text.
+     * @throws IOException If there's an error reading the stream.
      */
-    private String readTextFromFile(String filePath) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                sb.append(line).append(" "); // Append line and a space
-            }
-        }
-        // Trim trailing space and normalise whitespace
-        return sb.toString().trim().replaceAll("\\s+", " ");
+    static Readability fromInputStream(String document, InputStream in, Set<ReadabilityScoreMapping.IndexType> indices,
+                                       SyllableSource syllableSource) throws IOException {
+        ScoringEvents.ScanEvent event = new ScoringEvents.ScanEvent();
+        event.begin();
+        long start = System.nanoTime();
+        // ASCII bytes are scanned as they are; only the rest goes through the decoder
+        TextScanner scanner = newScanner(indices, syllableSource);
+        long byteSize = ByteInput.scan(in, scanner);
+        TextStatistics statistics = scanner.finish().getStatistics();
+        endScan(event, start, document, byteSize, statistics, indices);
+        return new Readability(document, byteSize, null, statistics, indices, null);
     }
 
     /**
-     * Splits text into sentences based on terminal punctuation.
-     * @param text The input text.
-     * @return A list of sentences.
+     * Scores statistics that were counted elsewhere, e.g. merged from several shards or files.
+     * @param statistics The counts to score.
+     * @return The Readability of the counted text.
      */
-    private List<String> calculateSentences(String text) {
-        List<String> sentenceList = new ArrayList<>();
-        // Split by '.', '!', '?' followed by whitespace or end of string
-        String[] potentialSentences = text.split("[.!?]+\\s*");
-        for (String sentence : potentialSentences) {
-            // Ensure sentence is not just whitespace
-            if (!sentence.trim().isEmpty()) {
-                sentenceList.add(sentence.trim());
-            }
-        }
-        // Handle case where text might not end with punctuation
-        if (sentenceList.isEmpty() && !text.trim().isEmpty()) {
-            sentenceList.add(text.trim());
-        }
-        return sentenceList;
+    public static Readability fromStatistics(TextStatistics statistics) {
+        return new Readability(null, 0, null, statistics, ALL_INDICES, null);
     }
 
+    // --- Getters for Basic Metrics ---
+
     /**
-     * Splits sentences into words based on whitespace.
-     * @param sentences List of sentences.
-     * @return A list of words.
+     * Returns the text with all whitespace runs collapsed to single spaces.
+     * @return The normalised text, or null if the text was not retained.
      */
-    private List<String> calculateWords(List<String> sentences) {
-        List<String> wordList = new ArrayList<>();
-        for (String sentence : sentences) {
-            // Split by one or more whitespace characters
-            String[] sentenceWords = sentence.trim().split("\\s+");
-            for (String word : sentenceWords) {
-                // Basic cleaning: remove leading/trailing non-alphanumeric if needed,
-                // but keep punctuation within words for now (e.g., hyphenated)
-                // A more robust approach might handle punctuation better.
-                if (!word.isEmpty()) {
-                    wordList.add(word);
-                }
-            }
+    public String getText() {
+        if (normalisedText == null && text != null) {
+            normalisedText = normaliseWhitespace(text);
         }
-        return wordList;
+        return normalisedText;
     }
 
     /**
-     * Counts non-whitespace characters in the text.
-     * @param text The input text.
-     * @return The total number of non-whitespace characters.
+     * Gets the name of the input, as given by the caller.
+     * @return The name, usually a path, or null.
      */
-    private int calculateCharacters(String text) {
-        return text.replaceAll("\\s+", "").length();
+    String getDocument() {
+        return document;
     }
 
     /**
-     * Counts syllables and polysyllables (3+ syllables) in a list of words.
-     * Uses a more refined syllable counting logic.
-     * @param words List of words.
-     * @return An array where index 0 is total syllables, index 1 is total polysyllables.
+     * Gets the size of the input.
+     * @return The file size or the number of bytes read from a stream, or 0 if unknown.
      */
-    private int[] calculateSyllablesAndPolysyllables(List<String> words) {
-        int totalSyllables = 0;
-        int totalPolysyllables = 0;
-        for (String word : words) {
-            int syllables = countSyllablesInWord(word);
-            totalSyllables += syllables;
-            if (syllables > 2) {
-                totalPolysyllables++;
-            }
-        }
-        return new int[]{totalSyllables, totalPolysyllables};
+    long getByteSize() {
+        return byteSize;
     }
 
     /**
-     * Counts syllables in a single word using a common heuristic algorithm.
-     * Handles common cases like silent 'e', vowel groups, etc.
-     * @param word The word to count syllables in.
-     * @return The estimated number of syllables.
+     * Gets the text exactly as it was read, for writers that normalise it on the fly.
+     * @return The raw text, or null if the text was not retained.
      */
-    private int countSyllablesInWord(String word) {
-        if (word == null || word.isEmpty()) {
-            return 0;
-        }
+    String getRawText() {
+        return text;
+    }
 
-        // 1. Lowercase and remove non-alphabetic characters at the end (like commas, periods)
-        //    Keep internal hyphens for now. A more complex approach might split hyphenated words.
-        word = word.toLowerCase().replaceAll("[^a-z]$", "");
+    public TextStatistics getStatistics() {
+        return statistics;
+    }
 
-        // 2. Handle special cases and common words (optional but can improve accuracy)
-        //    e.g., if (word.equals(" Mmes.")) return 1;
+    /**
+     * Gets the indices that were computed for this text.
+     * @return The computed indices.
+     */
+    public Set<ReadabilityScoreMapping.IndexType> getIndices() {
+        return indices;
+    }
 
-        // 3. Count vowel groups (a, e, i, o, u, y)
-        int syllableCount = 0;
-        boolean lastWasVowel = false;
-        Pattern vowelPattern = Pattern.compile("[aeiouy]");
+    /**
+     * Tells whether a raw count was gathered, i.e. whether a computed index needs it.
+     * @param metric The count.
+     * @return True if the count is available.
+     */
+    public boolean hasMetric(TextMetric metric) {
+        return metrics.contains(metric);
+    }
 
-        for (int i = 0; i < word.length(); i++) {
-            Matcher matcher = vowelPattern.matcher(String.valueOf(word.charAt(i)));
-            if (matcher.find()) {
-                if (!lastWasVowel) {
-                    syllableCount++;
-                }
-                lastWasVowel = true;
-            } else {
-                lastWasVowel = false;
-            }
-        }
+    public long getSentenceCount() {
+        return statistics.getSentenceCount();
+    }
 
-        // 4. Adjustments
-        //    - Subtract 1 if the word ends in "e" (silent e), unless it's the only vowel (like "the")
-        if (word.endsWith("e") && syllableCount > 1 && !word.endsWith("le")) { // Avoid subtracting for words like 'apple' if 'le' forms a syllable
-            // Check if the second to last char is not a vowel (handles 'ae', 'oe' etc. ending in 'e')
-            if (word.length() > 1 && !vowelPattern.matcher(String.valueOf(word.charAt(word.length() - 2))).find()) {
-                syllableCount--;
-            }
-        }
-        //    - Handle words ending in "le" where 'l' acts as a vowel sound if preceded by a consonant.
-        if (word.endsWith("le") && word.length() > 2) {
-            char precedingChar = word.charAt(word.length() - 3);
-            Matcher matcher = vowelPattern.matcher(String.valueOf(precedingChar));
-            if (!matcher.find()) { // If preceded by a consonant
-                // Check if the 'e' wasn't already counted as part of a vowel group
-                if (!vowelPattern.matcher(String.valueOf(word.charAt(word.length()-2))).find()) {
-                    // This logic can get complex; simple heuristic: add 1 if 'le' follows consonant and wasn't counted.
-                    // A simpler rule might be needed, or rely on the initial vowel count.
-                    // Let's stick to the initial count + silent 'e' rule for simplicity here.
-                }
-            }
-        }
+    public long getWordCount() {
+        return statistics.getWordCount();
+    }
 
+    public long getCharacterCount() {
+        return statistics.getCharacterCount();
+    }
 
-        // 5. Ensure at least one syllable for any word with letters.
-        if (syllableCount == 0 && word.length() > 0) {
-            syllableCount = 1;
-        }
+    public long getSyllableCount() {
+        requireMetric(TextMetric.SYLLABLES);
+        return statistics.getSyllableCount();
+    }
+
+    public long getPolysyllableCount() {
+        requireMetric(TextMetric.POLYSYLLABLES);
+        return statistics.getPolysyllableCount();
+    }
+
+    // --- Getters for Readability Scores ---
 
-        return syllableCount;
+    public double getAriScore() {
+        return getScore(ReadabilityScoreMapping.IndexType.ARI);
     }
 
+    public double getFkScore() {
+        return getScore(ReadabilityScoreMapping.IndexType.FK);
+    }
+
+    public double getSmogScore() {
+        return getScore(ReadabilityScoreMapping.IndexType.SMOG);
+    }
+
+    public double getClScore() {
+        return getScore(ReadabilityScoreMapping.IndexType.CL);
+    }
 
     /**
-     * Calculates all readability scores.
+     * Gets the score of the given index.
+     * @param type The index type.
+     * @return The score.
+     * @throws IllegalStateException If the index was not computed for this text.
      */
-    private void calculateAllScores() {
-        // Ensure division by zero doesn't happen
-        int wordC = Math.max(1, getWordCount());
-        int sentenceC = Math.max(1, getSentenceCount());
-
-        // Automated Readability Index (ARI)
-        this.ariScore = 4.71 * ((double) getCharacterCount() / wordC) +
-                0.5 * ((double) wordC / sentenceC) - 21.43;
-
-        // Flesch–Kincaid Readability Tests (FK)
-        this.fkScore = 0.39 * ((double) wordC / sentenceC) +
-                11.8 * ((double) getSyllableCount() / wordC) - 15.59;
-
-        // Simple Measure of Gobbledygook (SMOG)
-        // Note: SMOG requires at least 30 sentences for standard calculation.
-        // This implementation applies the formula regardless, but accuracy may vary for short texts.
-        if (getPolysyllableCount() > 0 && sentenceC > 0) {
-            this.smogScore = 1.043 * Math.sqrt((double) getPolysyllableCount() * (30.0 / sentenceC)) + 3.1291;
-        } else {
-            this.smogScore = 0.0; // Or handle as undefined/error
+    public double getScore(ReadabilityScoreMapping.IndexType type) {
+        if (!indices.contains(type)) {
+            throw new IllegalStateException(type + " was not computed for this text.");
         }
+        return switch (type) {
+            case ARI -> ariScore;
+            case FK -> fkScore;
+            case SMOG -> smogScore;
+            case CL -> clScore;
+        };
+    }
 
-
-        // Coleman–Liau Index (CL)
-        double avgLettersPer100Words = ((double) getCharacterCount() / wordC) * 100.0;
-        double avgSentencesPer100Words = ((double) sentenceC / wordC) * 100.0;
-        this.clScore = 0.0588 * avgLettersPer100Words - 0.296 * avgSentencesPer100Words - 15.8;
+    /**
+     * Gets the age/grade information corresponding to the score of the given index.
+     * @param type The index type.
+     * @return The corresponding ReadabilityScoreInfo.
+     * @throws IllegalStateException If the index was not computed for this text.
+     */
+    public ReadabilityScoreInfo getScoreInfo(ReadabilityScoreMapping.IndexType type) {
+        return ReadabilityScoreMapping.infoFor(type, getScore(type));
     }
 
-    // --- Public Methods for Output ---
+    // --- Private Helper Methods for Calculation ---
 
     /**
-     * Prints the basic text statistics.
+     * Reads the entire content of a file into a string, as is, decompressing it if it is gzipped.
+     * @param filePath Path to the file.
+     * @return String content of the file.
+     * @throws IOException If reading fails.
      */
-    public void printStats() {
-        System.out.println("The text is:");
-        System.out.println(this.text);
-        System.out.println("\nWords: " + getWordCount());
-        System.out.println("Sentences: " + getSentenceCount());
-        System.out.println("Characters: " + getCharacterCount());
-        System.out.println("Syllables: " + getSyllableCount());
-        System.out.println("Polysyllables: " + getPolysyllableCount());
+    private static String readTextFromFile(String filePath) throws IOException {
+        Path path = Path.of(filePath);
+        ScoringEvents.ReadEvent event = new ScoringEvents.ReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        byte[] bytes = GzipInput.isGzip(path) ? GzipInput.readAllBytes(path) : Files.readAllBytes(path);
+        PipelineMetrics.recordStage(PipelineMetrics.Stage.READ, start);
+        event.commit(filePath, bytes.length);
+        // Same charset as FileReader; malformed input is replaced, not rejected
+        return new String(bytes, Charset.defaultCharset());
     }
 
     /**
-     * Calculates and prints the readability score and corresponding age for the chosen index.
-     * @param indexType The type of index to calculate ("ARI", "FK", "SMOG", "CL", "all").
+     * Collapses every whitespace run to a single space and trims the result.
+     * @param text The raw text.
+     * @return The normalised text.
      */
-    public void printReadabilityScore(String indexType) {
-        System.out.println(); // Add a newline for better formatting
+    private static String normaliseWhitespace(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+                pendingSpace = true;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString().trim();
+    }
 
-        double totalAge = 0;
-        int scoreCount = 0;
+    private static TextScanner newScanner(Set<ReadabilityScoreMapping.IndexType> indices,
+                                          SyllableSource syllableSource) {
+        return new TextScanner(TextMetric.needsSyllables(TextMetric.requiredBy(indices)), syllableSource);
+    }
 
-        if ("ARI".equalsIgnoreCase(indexType) || "all".equalsIgnoreCase(indexType)) {
-            ReadabilityScoreInfo ariInfo = scoreMapping.getInfoFromScore(ReadabilityScoreMapping.IndexType.ARI, this.ariScore);
-            System.out.printf("Automated Readability Index: %.2f (about %d year-olds).%n", this.ariScore, ariInfo.getApproxAge());
-            totalAge += ariInfo.getApproxAge();
-            scoreCount++;
+    /**
+     * Records a finished scan in the pipeline metrics, and commits its event if it is being recorded.
+     */
+    private static void endScan(ScoringEvents.ScanEvent event, long startNanos, String document, long byteSize,
+                                TextStatistics statistics, Set<ReadabilityScoreMapping.IndexType> indices) {
+        PipelineMetrics.documentScanned(startNanos, byteSize);
+        if (event.shouldCommit()) {
+            Set<TextMetric> metrics = TextMetric.requiredBy(indices);
+            event.document = document;
+            event.bytes = byteSize;
+            event.setCounts(statistics, metrics);
+            event.syllablesCounted = TextMetric.needsSyllables(metrics);
+            event.commit();
         }
+    }
 
-        if ("FK".equalsIgnoreCase(indexType) || "all".equalsIgnoreCase(indexType)) {
-            ReadabilityScoreInfo fkInfo = scoreMapping.getInfoFromScore(ReadabilityScoreMapping.IndexType.FK, this.fkScore);
-            System.out.printf("Flesch–Kincaid readability tests: %.2f (about %d year-olds).%n", this.fkScore, fkInfo.getApproxAge());
-            totalAge += fkInfo.getApproxAge();
-            scoreCount++;
+    private void requireMetric(TextMetric metric) {
+        if (!metrics.contains(metric)) {
+            throw new IllegalStateException(metric + " were not counted for this text.");
         }
+    }
 
-        if ("SMOG".equalsIgnoreCase(indexType) || "all".equalsIgnoreCase(indexType)) {
-            ReadabilityScoreInfo smogInfo = scoreMapping.getInfoFromScore(ReadabilityScoreMapping.IndexType.SMOG, this.smogScore);
-            System.out.printf("Simple Measure of Gobbledygook: %.2f (about %d year-olds).%n", this.smogScore, smogInfo.getApproxAge());
-            totalAge += smogInfo.getApproxAge();
-            scoreCount++;
+    /**
+     * Calculates the readability scores of the requested indices only.
+     */
+    private void calculateScores() {
+        ScoringEvents.ScoreEvent event = new ScoringEvents.ScoreEvent();
+        event.begin();
+        long start = System.nanoTime();
+        for (ReadabilityScoreMapping.IndexType type : indices) {
+            switch (type) {
+                case ARI -> this.ariScore = statistics.getAriScore();
+                case FK -> this.fkScore = statistics.getFkScore();
+                case SMOG -> this.smogScore = statistics.getSmogScore();
+                case CL -> this.clScore = statistics.getClScore();
+            }
+        }
+        PipelineMetrics.recordStage(PipelineMetrics.Stage.SCORE, start);
+        if (event.shouldCommit()) {
+            event.document = document;
+            event.bytes = byteSize;
+            event.setCounts(statistics, metrics);
+            event.indices = indices.toString();
+            event.commit();
         }
+    }
+
+    // --- Public Methods for Output ---
 
-        if ("CL".equalsIgnoreCase(indexType) || "all".equalsIgnoreCase(indexType)) {
-            ReadabilityScoreInfo clInfo = scoreMapping.getInfoFromScore(ReadabilityScoreMapping.IndexType.CL, this.clScore);
-            System.out.printf("Coleman–Liau index: %.2f (about %d year-olds).%n", this.clScore, clInfo.getApproxAge());
-            totalAge += clInfo.getApproxAge();
-            scoreCount++;
+    /**
+     * Prints the basic text statistics, preceded by the text if it was retained.
+     */
+    public void printStats() {
+        ResultWriter.Text out = new ResultWriter.Text(System.out, indices);
+        try {
+            out.writeStats(this, ResultWriter.ECHO_ALL);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+    }
 
-        if ("all".equalsIgnoreCase(indexType) && scoreCount > 0) {
-            double averageAge = totalAge / scoreCount;
-            System.out.printf("%nThis text should be understood on average by %.2f year-olds.%n", averageAge);
-        } else if (!"ARI".equalsIgnoreCase(indexType) && !"FK".equalsIgnoreCase(indexType) &&
-                !"SMOG".equalsIgnoreCase(indexType) && !"CL".equalsIgnoreCase(indexType) &&
-                !"all".equalsIgnoreCase(indexType)) {
-            System.out.println("Error: Invalid index type specified.");
+    /**
+     * Calculates and prints the readability score and corresponding age for the chosen index.
+     * @param indexType The type of index to calculate ("ARI", "FK", "SMOG", "CL", "all").
+     */
+    public void printReadabilityScore(String indexType) {
+        ResultWriter.Text out = new ResultWriter.Text(System.out, indices);
+        try {
+            if ("all".equalsIgnoreCase(indexType)) {
+                out.writeScores(this, EnumSet.allOf(ReadabilityScoreMapping.IndexType.class));
+            } else {
+                ReadabilityScoreMapping.IndexType type = null;
+                for (ReadabilityScoreMapping.IndexType candidate : ReadabilityScoreMapping.IndexType.values()) {
+                    if (candidate.name().equalsIgnoreCase(indexType)) {
+                        type = candidate;
+                    }
+                }
+                if (type != null) {
+                    out.writeScores(this, EnumSet.of(type));
+                } else {
+                    out.writeLine(""); // Add a newline for better formatting
+                    out.writeLine("Error: Invalid index type specified.");
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
-}
\ No newline at end of file
+}
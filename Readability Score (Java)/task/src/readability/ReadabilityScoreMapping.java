@@ -1,45 +1,66 @@
 package readability;
 
-import java.util.NavigableMap;
-import java.util.TreeMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Manages the mapping between readability scores (ARI, FK, SMOG, CL)
  * and their corresponding age/grade levels using ReadabilityScoreInfo.
+ * <p>
+ * The mappings are compiled once per process into sorted {@code double[]} thresholds with
+ * a parallel array of infos, so a lookup is a short binary search on primitives: no boxing,
+ * no tree nodes and no per-document setup. The tables are immutable and safe to share
+ * between threads; instances of this class are just views of them.
  */
 public class ReadabilityScoreMapping {
 
-    // Using NavigableMap to easily find the appropriate range based on score
-    private final NavigableMap<Double, ReadabilityScoreInfo> ariMap;
-    private final NavigableMap<Double, ReadabilityScoreInfo> fkMap;
-    private final NavigableMap<Double, ReadabilityScoreInfo> smogMap;
-    private final NavigableMap<Double, ReadabilityScoreInfo> clMap;
+    // Indexed by IndexType ordinal
+    private static final Table[] TABLES = {ariTable(), fkTable(), smogTable(), clTable()};
 
     /**
-     * Enum to define the different index types.
+     * Enum to define the different index types, along with the raw counts each one needs.
      */
     public enum IndexType {
-        ARI, FK, SMOG, CL
+        ARI("Automated Readability Index", TextMetric.CHARACTERS, TextMetric.WORDS, TextMetric.SENTENCES),
+        FK("Flesch–Kincaid readability tests", TextMetric.SYLLABLES, TextMetric.WORDS, TextMetric.SENTENCES),
+        SMOG("Simple Measure of Gobbledygook", TextMetric.POLYSYLLABLES, TextMetric.SENTENCES),
+        CL("Coleman–Liau index", TextMetric.CHARACTERS, TextMetric.WORDS, TextMetric.SENTENCES);
+
+        private final String displayName;
+        private final Set<TextMetric> requiredMetrics;
+
+        IndexType(String displayName, TextMetric first, TextMetric... rest) {
+            this.displayName = displayName;
+            this.requiredMetrics = Collections.unmodifiableSet(EnumSet.of(first, rest));
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * Gets the raw counts the formula of this index is based on.
+         * @return The required counts.
+         */
+        public Set<TextMetric> getRequiredMetrics() {
+            return requiredMetrics;
+        }
     }
 
     /**
-     * Constructor: Initialises the score-to-age/grade mappings for all indices.
+     * Constructor: Gives access to the shared score-to-age/grade mappings; nothing is built.
      */
     public ReadabilityScoreMapping() {
-        ariMap = new TreeMap<>();
-        fkMap = new TreeMap<>();
-        smogMap = new TreeMap<>();
-        clMap = new TreeMap<>();
-
-        initialiseAriMap();
-        initialiseFkMap();
-        initialiseSmogMap();
-        initialiseClMap();
     }
 
     // --- Initialisation Methods ---
 
-    private void initialiseAriMap() {
+    private static Table ariTable() {
+        TableBuilder ariMap = new TableBuilder();
         // Score thresholds represent the *start* of the range for that age/grade
         // Based on typical ARI score interpretations
         ariMap.put(1.0, new ReadabilityScoreInfo(5, 6, "Kindergarten"));
@@ -57,9 +78,11 @@ public class ReadabilityScoreMapping {
         ariMap.put(13.0, new ReadabilityScoreInfo(17, 18, "Twelfth Grade"));
         ariMap.put(14.0, new ReadabilityScoreInfo(18, 24, "College student"));
         ariMap.put(15.0, new ReadabilityScoreInfo(24, 99, "Professor"));
+        return ariMap.build();
     }
 
-    private void initialiseFkMap() {
+    private static Table fkTable() {
+        TableBuilder fkMap = new TableBuilder();
         // Flesch-Kincaid Grade Level mapping (Score roughly corresponds to US grade level)
         // We map grade level to age range
         fkMap.put(1.0, new ReadabilityScoreInfo(6, 7, "First Grade"));
@@ -77,9 +100,11 @@ public class ReadabilityScoreMapping {
         fkMap.put(13.0, new ReadabilityScoreInfo(18, 24, "College student"));
         // Add an entry for scores above 13 (or adjust range)
         fkMap.put(16.0, new ReadabilityScoreInfo(24, 99, "Professor")); // Scores can go higher
+        return fkMap.build();
     }
 
-    private void initialiseSmogMap() {
+    private static Table smogTable() {
+        TableBuilder smogMap = new TableBuilder();
         // SMOG Index mapping (Score roughly corresponds to US grade level)
         // Similar mapping to FK
         smogMap.put(1.0, new ReadabilityScoreInfo(6, 7, "First Grade"));
@@ -96,9 +121,11 @@ public class ReadabilityScoreMapping {
         smogMap.put(12.0, new ReadabilityScoreInfo(17, 18, "Twelfth Grade"));
         smogMap.put(13.0, new ReadabilityScoreInfo(18, 24, "College student"));
         smogMap.put(16.0, new ReadabilityScoreInfo(24, 99, "Professor")); // Or Graduate level
+        return smogMap.build();
     }
 
-    private void initialiseClMap() {
+    private static Table clTable() {
+        TableBuilder clMap = new TableBuilder();
         // Coleman-Liau Index mapping (Score roughly corresponds to US grade level)
         // Similar mapping to FK and SMOG
         clMap.put(1.0, new ReadabilityScoreInfo(6, 7, "First Grade"));
@@ -115,9 +142,9 @@ public class ReadabilityScoreMapping {
         clMap.put(12.0, new ReadabilityScoreInfo(17, 18, "Twelfth Grade"));
         clMap.put(13.0, new ReadabilityScoreInfo(18, 24, "College student"));
         clMap.put(16.0, new ReadabilityScoreInfo(24, 99, "Professor")); // Or Graduate level
+        return clMap.build();
     }
 
-
     // --- Public Access Method ---
 
     /**
@@ -129,24 +156,81 @@ public class ReadabilityScoreMapping {
      * @return The corresponding ReadabilityScoreInfo, or a default/highest if score is out of range.
      */
     public ReadabilityScoreInfo getInfoFromScore(IndexType type, double score) {
-        NavigableMap<Double, ReadabilityScoreInfo> map = switch (type) {
-            case ARI -> ariMap;
-            case FK -> fkMap;
-            case SMOG -> smogMap;
-            case CL -> clMap;
-            default -> throw new IllegalArgumentException("Invalid IndexType specified.");
-        };
-
-        // Find the entry whose key is less than or equal to the score
-        var entry = map.floorEntry(score);
-
-        if (entry != null) {
-            return entry.getValue();
-        } else {
+        return infoFor(type, score);
+    }
+
+    /**
+     * Gets the ReadabilityScoreInfo (age/grade) corresponding to a given score from the
+     * shared tables, without creating a mapping instance.
+     *
+     * @param type  The IndexType (ARI, FK, SMOG, CL).
+     * @param score The calculated readability score.
+     * @return The info of the highest threshold not above the score; the lowest one for
+     *         smaller scores and the highest one for NaN.
+     */
+    public static ReadabilityScoreInfo infoFor(IndexType type, double score) {
+        return TABLES[type.ordinal()].floor(score);
+    }
+
+    // --- Tables ---
+
+    /**
+     * Immutable sorted thresholds with the info each one starts.
+     */
+    private static final class Table {
+
+        private final double[] thresholds;
+        private final ReadabilityScoreInfo[] infos;
+
+        Table(double[] thresholds, ReadabilityScoreInfo[] infos) {
+            this.thresholds = thresholds;
+            this.infos = infos;
+        }
+
+        ReadabilityScoreInfo floor(double score) {
+            // NaN compares above every threshold, as it did as a TreeMap key
+            if (Double.isNaN(score)) {
+                return infos[infos.length - 1];
+            }
+            // Find the entry whose key is less than or equal to the score
+            int low = 0;
+            int high = thresholds.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                if (thresholds[middle] <= score) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
             // If score is below the lowest threshold, return the lowest entry's info
-            // Or handle as undefined/error depending on requirements
-            var firstEntry = map.firstEntry();
-            return (firstEntry != null) ? firstEntry.getValue() : new ReadabilityScoreInfo(0, 0, "Undefined"); // Fallback
+            return infos[Math.max(high, 0)];
+        }
+    }
+
+    /**
+     * Collects the entries of a table in ascending threshold order.
+     */
+    private static final class TableBuilder {
+
+        private final List<ReadabilityScoreInfo> infos = new ArrayList<>();
+        private double[] thresholds = new double[16];
+
+        void put(double threshold, ReadabilityScoreInfo info) {
+            int size = infos.size();
+            if (size > 0 && threshold <= thresholds[size - 1]) {
+                throw new IllegalArgumentException("Thresholds must be added in ascending order.");
+            }
+            if (size == thresholds.length) {
+                thresholds = Arrays.copyOf(thresholds, size * 2);
+            }
+            thresholds[size] = threshold;
+            infos.add(info);
+        }
+
+        Table build() {
+            return new Table(Arrays.copyOf(thresholds, infos.size()),
+                    infos.toArray(new ReadabilityScoreInfo[0]));
         }
     }
 }
@@ -0,0 +1,74 @@
+package readability;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Output formats for one-record-per-document results.
+ * <p>
+ * PLAIN is meant for people, CSV and JSONL for scripts and BINARY for programs that read
+ * millions of records; see {@link ResultWriter.Binary} for its layout. Numbers are always
+ * written with a '.' decimal separator, whatever the default locale.
+ */
+enum ResultFormat {
+    PLAIN, CSV, JSONL, BINARY;
+
+    /**
+     * Finds a format by its case-insensitive name.
+     * @param name "plain", "csv", "jsonl" or "binary".
+     * @return The format.
+     * @throws IllegalArgumentException If there is no such format.
+     */
+    static ResultFormat fromName(String name) {
+        for (ResultFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown output format: " + name);
+    }
+
+    /**
+     * Creates a writer of records in this format. Any header is written straight away.
+     * @param out     Where the records go; flushed by the writer but never closed.
+     * @param indices The indices included in each record.
+     * @return The writer.
+     * @throws IOException If the header cannot be written.
+     */
+    ResultWriter newWriter(OutputStream out, Set<ReadabilityScoreMapping.IndexType> indices) throws IOException {
+        return switch (this) {
+            case PLAIN -> new ResultWriter.Text(out, indices);
+            case CSV -> new ResultWriter.Csv(out, indices);
+            case JSONL -> new ResultWriter.JsonLines(out, indices);
+            case BINARY -> new ResultWriter.Binary(out, indices);
+        };
+    }
+
+    /**
+     * Appends a value as a quoted JSON string. Shared by the JSON lines writer and the scoring server.
+     * @param sb    The builder to append to.
+     * @param value The value to quote and escape.
+     */
+    static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
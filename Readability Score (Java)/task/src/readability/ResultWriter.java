@@ -0,0 +1,673 @@
+package readability;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * Streaming sink for scoring results, one subclass per {@link ResultFormat}.
+ * <p>
+ * Every record is encoded straight into a single large byte buffer, which only goes to the
+ * underlying stream when it is full or flushed, so millions of records cost a few large
+ * writes rather than one small write, one {@code String} and one {@link java.util.Formatter}
+ * per value. Integers are written digit by digit and scores with two decimals, rounded
+ * half up like {@code %.2f}, without {@code String.format}; numbers always use a '.'
+ * decimal separator. ASCII text is copied byte by byte and anything else is encoded with
+ * the default charset, except in the binary format, which uses UTF-8.
+ * <p>
+ * Records may be written from several threads; each one is written whole.
+ */
+abstract class ResultWriter implements Flushable {
+
+    /** Size of the output buffer. */
+    static final int BUFFER_SIZE = 256 * 1024;
+
+    /** Echo limit meaning the whole text. */
+    static final long ECHO_ALL = Long.MAX_VALUE;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DIGIT_PAIRS = new byte[200];
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_PAIRS[2 * i] = (byte) ('0' + i / 10);
+            DIGIT_PAIRS[2 * i + 1] = (byte) ('0' + i % 10);
+        }
+    }
+
+    // From this magnitude, or this close to a rounding tie, scores are rounded exactly; above
+    // about 1e7 the margin grows with the ulp of the scaled value, so true ties stay inside it
+    static final double MAX_FAST_ROUNDING = 1e9;
+    private static final double TIE_MARGIN = 1e-6;
+    private static final int TIE_MARGIN_ULPS = 4;
+
+    protected final Set<ReadabilityScoreMapping.IndexType> indices;
+    private final OutputStream out;
+    private final Charset charset;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int count;
+    private long drained; // Bytes already handed to the underlying stream
+
+    /**
+     * Constructor for ResultWriter.
+     * @param out     Where the records go; flushed by {@link #flush()} but never closed.
+     * @param indices The indices included in each record.
+     * @param charset The charset of non-ASCII text.
+     */
+    protected ResultWriter(OutputStream out, Set<ReadabilityScoreMapping.IndexType> indices, Charset charset) {
+        this.out = out;
+        this.indices = indices;
+        this.charset = charset;
+    }
+
+    /**
+     * Writes the result of one document as a single record.
+     * @param name        The document name, usually its path.
+     * @param readability The scored document.
+     * @throws IOException If the buffer cannot be written out.
+     */
+    final synchronized void write(String name, Readability readability) throws IOException {
+        ScoringEvents.OutputEvent event = new ScoringEvents.OutputEvent();
+        event.begin();
+        long startNanos = System.nanoTime();
+        long start = position();
+        writeRecord(name, readability);
+        endOutput(event, startNanos, name, readability, start);
+    }
+
+    /**
+     * Writes out the buffer and flushes the underlying stream.
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public final synchronized void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Encodes one record into the buffer.
+     * @param name        The document name.
+     * @param readability The scored document.
+     * @throws IOException If the buffer cannot be written out.
+     */
+    protected abstract void writeRecord(String name, Readability readability) throws IOException;
+
+    // --- Encoding Primitives ---
+
+    protected final void writeByte(int b) throws IOException {
+        if (count == buffer.length) {
+            drain();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    protected final void writeBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.length - count) {
+            drain();
+            if (bytes.length > buffer.length) {
+                out.write(bytes);
+                drained += bytes.length;
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buffer, count, bytes.length);
+        count += bytes.length;
+    }
+
+    protected final void writeLine() throws IOException {
+        writeBytes(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes text in the writer's charset, copying ASCII runs byte by byte.
+     */
+    protected final void writeText(CharSequence text) throws IOException {
+        writeText(text, 0, text.length());
+    }
+
+    protected final void writeText(CharSequence text, int start, int end) throws IOException {
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+                i++;
+                continue;
+            }
+            int runEnd = i + 1;
+            while (runEnd < end && text.charAt(runEnd) >= 0x80) {
+                runEnd++;
+            }
+            writeBytes(text.subSequence(i, runEnd).toString().getBytes(charset));
+            i = runEnd;
+        }
+    }
+
+    /**
+     * Writes a whole number in decimal.
+     */
+    protected final void writeLong(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeText(Long.toString(value));
+                return;
+            }
+            writeByte('-');
+            value = -value;
+        }
+        if (buffer.length - count < 20) {
+            drain();
+        }
+        int digits = digitCount(value);
+        int position = count + digits;
+        while (value >= 100) {
+            int pair = (int) (value % 100) * 2;
+            value /= 100;
+            buffer[--position] = DIGIT_PAIRS[pair + 1];
+            buffer[--position] = DIGIT_PAIRS[pair];
+        }
+        if (value >= 10) {
+            buffer[--position] = DIGIT_PAIRS[(int) value * 2 + 1];
+            buffer[--position] = DIGIT_PAIRS[(int) value * 2];
+        } else {
+            buffer[--position] = (byte) ('0' + value);
+        }
+        count += digits;
+    }
+
+    /**
+     * Writes a number with exactly two decimals, as {@code %.2f} would.
+     */
+    protected final void writeFixed2(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeText(Double.toString(value));
+            return;
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        if (value >= MAX_FAST_ROUNDING) {
+            writeText(roundExactly(value).toPlainString());
+            return;
+        }
+        long hundredths = hundredths(value);
+        writeLong(hundredths / 100);
+        writeByte('.');
+        int fraction = (int) (hundredths % 100) * 2;
+        writeByte(DIGIT_PAIRS[fraction]);
+        writeByte(DIGIT_PAIRS[fraction + 1]);
+    }
+
+    /**
+     * Appends a number with exactly two decimals, rounded like {@link #writeFixed2(double)}.
+     * Shared by the writers' callers that build text in memory, such as the scoring server.
+     * @param sb    The builder to append to.
+     * @param value The number.
+     */
+    static void appendFixed2(StringBuilder sb, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            sb.append(value);
+            return;
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            sb.append('-');
+            value = -value;
+        }
+        if (value >= MAX_FAST_ROUNDING) {
+            sb.append(roundExactly(value).toPlainString());
+            return;
+        }
+        long hundredths = hundredths(value);
+        int fraction = (int) (hundredths % 100) * 2;
+        sb.append(hundredths / 100).append('.')
+                .append((char) DIGIT_PAIRS[fraction]).append((char) DIGIT_PAIRS[fraction + 1]);
+    }
+
+    /**
+     * Writes an unsigned LEB128 variable-length integer: seven bits per byte, low bits first.
+     */
+    protected final void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    protected final void writeDouble(double value) throws IOException {
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            writeByte((int) (bits >>> shift));
+        }
+    }
+
+    // --- Shared Record Parts ---
+
+    /**
+     * Gets the approximate age of each index, in the order of {@link #indices}.
+     */
+    protected final int[] ages(Readability readability) {
+        int[] ages = new int[indices.size()];
+        int i = 0;
+        for (ReadabilityScoreMapping.IndexType type : indices) {
+            ages[i++] = readability.getScoreInfo(type).getApproxAge();
+        }
+        return ages;
+    }
+
+    protected final double averageAge(int[] ages) {
+        if (ages.length == 0) {
+            return 0;
+        }
+        double total = 0;
+        for (int age : ages) {
+            total += age;
+        }
+        return total / ages.length;
+    }
+
+    /**
+     * Records a written result in the pipeline metrics, and commits its event if it is being recorded.
+     * @param event       The event.
+     * @param startNanos  The {@link System#nanoTime()} reading taken before the record.
+     * @param name        The document name.
+     * @param readability The scored document.
+     * @param start       The {@link #position()} before the record.
+     */
+    protected final void endOutput(ScoringEvents.OutputEvent event, long startNanos, String name,
+                                   Readability readability, long start) {
+        PipelineMetrics.recordStage(PipelineMetrics.Stage.OUTPUT, startNanos);
+        if (event.shouldCommit()) {
+            event.document = name;
+            event.bytes = readability.getByteSize();
+            event.format = getClass().getSimpleName();
+            event.written = position() - start;
+            event.commit();
+        }
+    }
+
+    /**
+     * Gets the number of bytes written so far, buffered or not.
+     */
+    protected final long position() {
+        return drained + count;
+    }
+
+    // --- Private Helper Methods ---
+
+    private void drain() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            drained += count;
+            count = 0;
+        }
+    }
+
+    /**
+     * Rounds a non-negative value below {@link #MAX_FAST_ROUNDING} to hundredths, half up on
+     * its shortest decimal representation like {@link java.util.Formatter}. Only near-ties
+     * are rounded exactly: those within the error of the scaled value, a few of its ulps.
+     */
+    private static long hundredths(double value) {
+        double scaled = value * 100;
+        long floor = (long) scaled;
+        double fraction = scaled - floor;
+        if (Math.abs(fraction - 0.5) > Math.max(TIE_MARGIN, TIE_MARGIN_ULPS * Math.ulp(scaled))) {
+            return fraction > 0.5 ? floor + 1 : floor;
+        }
+        return roundExactly(value).unscaledValue().longValue();
+    }
+
+    private static BigDecimal roundExactly(double value) {
+        return new BigDecimal(Double.toString(value)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        for (long bound = 10; digits < 19 && value >= bound; bound *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    // --- Formats ---
+
+    /**
+     * Human-readable output: one line per document, or the full report of a single document
+     * with its statistics, optionally preceded by its text.
+     */
+    static final class Text extends ResultWriter {
+
+        private static final String TRUNCATION_MARK = "...";
+
+        Text(OutputStream out, Set<ReadabilityScoreMapping.IndexType> indices) {
+            super(out, indices, Charset.defaultCharset());
+        }
+
+        @Override
+        protected void writeRecord(String name, Readability readability) throws IOException {
+            writeText(name);
+            writeByte(':');
+            int[] ages = ages(readability);
+            int i = 0;
+            for (ReadabilityScoreMapping.IndexType type : indices) {
+                writeByte(' ');
+                writeText(type.name());
+                writeByte(' ');
+                writeFixed2(readability.getScore(type));
+                writeText(" (about ");
+                writeLong(ages[i++]);
+                writeText(" year-olds),");
+            }
+            writeText(" average ");
+            writeFixed2(averageAge(ages));
+            writeText(" year-olds");
+            writeLine();
+        }
+
+        /**
+         * Writes the basic text statistics, preceded by the text if it was retained and
+         * echoing is wanted; counts that were not gathered are left out.
+         * @param readability The scored document.
+         * @param echoLimit   Maximum number of characters of the text to write, 0 for none,
+         *                    or {@link #ECHO_ALL}; a cut text ends with "...".
+         * @throws IOException If the buffer cannot be written out.
+         */
+        synchronized void writeStats(Readability readability, long echoLimit) throws IOException {
+            ScoringEvents.OutputEvent event = new ScoringEvents.OutputEvent();
+            event.begin();
+            long startNanos = System.nanoTime();
+            long start = position();
+            CharSequence text = readability.getRawText();
+            if (echoLimit > 0 && text != null) {
+                writeText("The text is:");
+                writeLine();
+                writeNormalisedText(text, echoLimit);
+                writeLine();
+            }
+            writeLine();
+            writeCount("Words: ", readability.getWordCount());
+            writeCount("Sentences: ", readability.getSentenceCount());
+            writeCount("Characters: ", readability.getCharacterCount());
+            if (readability.hasMetric(TextMetric.SYLLABLES)) {
+                writeCount("Syllables: ", readability.getSyllableCount());
+            }
+            if (readability.hasMetric(TextMetric.POLYSYLLABLES)) {
+                writeCount("Polysyllables: ", readability.getPolysyllableCount());
+            }
+            endOutput(event, startNanos, readability.getDocument(), readability, start);
+        }
+
+        /**
+         * Writes the scores and corresponding ages of the given indices, followed by the
+         * average age when there is more than one.
+         * @param readability The scored document.
+         * @param types       The indices to write, in declaration order.
+         * @throws IOException If the buffer cannot be written out.
+         */
+        synchronized void writeScores(Readability readability, Set<ReadabilityScoreMapping.IndexType> types)
+                throws IOException {
+            ScoringEvents.OutputEvent event = new ScoringEvents.OutputEvent();
+            event.begin();
+            long startNanos = System.nanoTime();
+            long start = position();
+            writeLine();
+            double totalAge = 0;
+            for (ReadabilityScoreMapping.IndexType type : types) {
+                int age = readability.getScoreInfo(type).getApproxAge();
+                writeText(type.getDisplayName());
+                writeText(": ");
+                writeFixed2(readability.getScore(type));
+                writeText(" (about ");
+                writeLong(age);
+                writeText(" year-olds).");
+                writeLine();
+                totalAge += age;
+            }
+            if (types.size() > 1) {
+                writeLine();
+                writeText("This text should be understood on average by ");
+                writeFixed2(totalAge / types.size());
+                writeText(" year-olds.");
+                writeLine();
+            }
+            endOutput(event, startNanos, readability.getDocument(), readability, start);
+        }
+
+        /**
+         * Writes one line of text as is.
+         * @param line The line, without a line separator.
+         * @throws IOException If the buffer cannot be written out.
+         */
+        synchronized void writeLine(String line) throws IOException {
+            writeText(line);
+            writeLine();
+        }
+
+        private void writeCount(String label, long value) throws IOException {
+            writeText(label);
+            writeLong(value);
+            writeLine();
+        }
+
+        /**
+         * Writes the text with every whitespace run collapsed to a single space and trimmed,
+         * as {@link Readability#getText()} returns it, without building the normalised copy.
+         */
+        private void writeNormalisedText(CharSequence text, long limit) throws IOException {
+            // Trimmed bounds, then whitespace runs in between become single spaces
+            int start = 0;
+            int end = text.length();
+            while (start < end && text.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && text.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            long written = 0;
+            int i = start;
+            while (i < end) {
+                if (TextScanner.isWhitespace(text.charAt(i))) {
+                    while (TextScanner.isWhitespace(text.charAt(i))) {
+                        i++; // The run cannot reach the end, which is not whitespace
+                    }
+                    if (written == limit) {
+                        writeText(TRUNCATION_MARK);
+                        return;
+                    }
+                    writeByte(' ');
+                    written++;
+                }
+                int runEnd = i + 1;
+                while (runEnd < end && !TextScanner.isWhitespace(text.charAt(runEnd))) {
+                    runEnd++;
+                }
+                if (runEnd - i > limit - written) {
+                    int cut = i + (int) (limit - written);
+                    if (cut > i && Character.isHighSurrogate(text.charAt(cut - 1))) {
+                        cut--; // Do not split a surrogate pair
+                    }
+                    writeText(text, i, cut);
+                    writeText(TRUNCATION_MARK);
+                    return;
+                }
+                writeText(text, i, runEnd);
+                written += runEnd - i;
+                i = runEnd;
+            }
+        }
+    }
+
+    /**
+     * Comma-separated values with a header line; counts that were not gathered are left empty.
+     */
+    static final class Csv extends ResultWriter {
+
+        Csv(OutputStream out, Set<ReadabilityScoreMapping.IndexType> indices) throws IOException {
+            super(out, indices, Charset.defaultCharset());
+            writeText("name,words,sentences,characters,syllables,polysyllables");
+            for (ReadabilityScoreMapping.IndexType type : indices) {
+                writeByte(',');
+                writeText(type.name());
+                writeByte(',');
+                writeText(type.name());
+                writeText("_age");
+            }
+            writeText(",average_age");
+            writeLine();
+        }
+
+        @Override
+        protected void writeRecord(String name, Readability readability) throws IOException {
+            writeField(name);
+            writeByte(',');
+            writeLong(readability.getWordCount());
+            writeByte(',');
+            writeLong(readability.getSentenceCount());
+            writeByte(',');
+            writeLong(readability.getCharacterCount());
+            writeByte(',');
+            if (readability.hasMetric(TextMetric.SYLLABLES)) {
+                writeLong(readability.getSyllableCount());
+            }
+            writeByte(',');
+            if (readability.hasMetric(TextMetric.POLYSYLLABLES)) {
+                writeLong(readability.getPolysyllableCount());
+            }
+            int[] ages = ages(readability);
+            int i = 0;
+            for (ReadabilityScoreMapping.IndexType type : indices) {
+                writeByte(',');
+                writeFixed2(readability.getScore(type));
+                writeByte(',');
+                writeLong(ages[i++]);
+            }
+            writeByte(',');
+            writeFixed2(averageAge(ages));
+            writeLine();
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writeText(value);
+                return;
+            }
+            writeByte('"');
+            writeText(value.replace("\"", "\"\""));
+            writeByte('"');
+        }
+    }
+
+    /**
+     * One JSON object per line; counts that were not gathered are left out.
+     */
+    static final class JsonLines extends ResultWriter {
+
+        JsonLines(OutputStream out, Set<ReadabilityScoreMapping.IndexType> indices) {
+            super(out, indices, Charset.defaultCharset());
+        }
+
+        @Override
+        protected void writeRecord(String name, Readability readability) throws IOException {
+            writeText("{\"name\":");
+            StringBuilder quoted = new StringBuilder(name.length() + 2);
+            ResultFormat.appendJsonString(quoted, name);
+            writeText(quoted);
+            writeText(",\"words\":");
+            writeLong(readability.getWordCount());
+            writeText(",\"sentences\":");
+            writeLong(readability.getSentenceCount());
+            writeText(",\"characters\":");
+            writeLong(readability.getCharacterCount());
+            if (readability.hasMetric(TextMetric.SYLLABLES)) {
+                writeText(",\"syllables\":");
+                writeLong(readability.getSyllableCount());
+            }
+            if (readability.hasMetric(TextMetric.POLYSYLLABLES)) {
+                writeText(",\"polysyllables\":");
+                writeLong(readability.getPolysyllableCount());
+            }
+            writeText(",\"scores\":{");
+            int[] ages = ages(readability);
+            int i = 0;
+            for (ReadabilityScoreMapping.IndexType type : indices) {
+                if (i > 0) {
+                    writeByte(',');
+                }
+                writeByte('"');
+                writeText(type.name());
+                writeText("\":{\"score\":");
+                writeFixed2(readability.getScore(type));
+                writeText(",\"age\":");
+                writeLong(ages[i++]);
+                writeByte('}');
+            }
+            writeText("},\"averageAge\":");
+            writeFixed2(averageAge(ages));
+            writeByte('}');
+            writeLine();
+        }
+    }
+
+    /**
+     * Compact binary records for machine consumption.
+     * <p>
+     * The stream starts with the magic bytes "RDB1" and one byte whose bit {@code i} is set
+     * when the index of ordinal {@code i} is included. Each record then holds the name as a
+     * varint byte length followed by its UTF-8 bytes; the word, sentence and character counts,
+     * then the syllable and polysyllable counts when the included indices need them, all as
+     * unsigned LEB128 varints; for each included index in declaration order, its score as a
+     * big-endian IEEE 754 double and its age as a varint; and finally the average age as a
+     * double. Scores are written in full, so undefined ones stay NaN.
+     */
+    static final class Binary extends ResultWriter {
+
+        private static final byte[] MAGIC = {'R', 'D', 'B', '1'};
+
+        private final boolean syllables;
+        private final boolean polysyllables;
+
+        Binary(OutputStream out, Set<ReadabilityScoreMapping.IndexType> indices) throws IOException {
+            super(out, indices, StandardCharsets.UTF_8);
+            Set<TextMetric> metrics = TextMetric.requiredBy(indices);
+            this.syllables = metrics.contains(TextMetric.SYLLABLES);
+            this.polysyllables = metrics.contains(TextMetric.POLYSYLLABLES);
+            writeBytes(MAGIC);
+            int mask = 0;
+            for (ReadabilityScoreMapping.IndexType type : indices) {
+                mask |= 1 << type.ordinal();
+            }
+            writeByte(mask);
+        }
+
+        @Override
+        protected void writeRecord(String name, Readability readability) throws IOException {
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(nameBytes.length);
+            writeBytes(nameBytes);
+            writeVarLong(readability.getWordCount());
+            writeVarLong(readability.getSentenceCount());
+            writeVarLong(readability.getCharacterCount());
+            if (syllables) {
+                writeVarLong(readability.getSyllableCount());
+            }
+            if (polysyllables) {
+                writeVarLong(readability.getPolysyllableCount());
+            }
+            int[] ages = ages(readability);
+            int i = 0;
+            for (ReadabilityScoreMapping.IndexType type : indices) {
+                writeDouble(readability.getScore(type));
+                writeVarLong(ages[i++]);
+            }
+            writeDouble(averageAge(ages));
+        }
+    }
+}
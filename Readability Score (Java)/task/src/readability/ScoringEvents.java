@@ -0,0 +1,139 @@
+package readability;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.util.Set;
+
+/**
+ * JDK Flight Recorder events around each stage of the scoring pipeline, so a slow document
+ * can be traced to reading, scanning, scoring or output in a recording, e.g. one started
+ * with {@code -XX:StartFlightRecording}.
+ * <p>
+ * Sentences, words, characters and syllables are counted together in a single pass of
+ * {@link TextScanner}, so the scan event covers all of them; for inputs that are streamed
+ * rather than read up front, it also covers the reading. Every stage follows the usual
+ * pattern: the event is created and begun, and its fields are only filled in and committed
+ * if {@code shouldCommit()} says it is being recorded. When no recording is running, the
+ * event methods compile to nothing and the unused event object is not even allocated.
+ */
+final class ScoringEvents {
+
+    private static final String CATEGORY = "Readability";
+
+    private ScoringEvents() {
+    }
+
+    /**
+     * Fields shared by the events of one document.
+     */
+    @Category(CATEGORY)
+    @StackTrace(false)
+    abstract static class DocumentEvent extends Event {
+
+        @Label("Document")
+        @Description("Name of the input, usually its path; empty when the caller gave none")
+        String document;
+
+        @Label("Size")
+        @Description("Size of the input: the file size, or the bytes read from a stream")
+        @DataAmount
+        long bytes;
+    }
+
+    /**
+     * Fields of the events that follow the scan, which know the counts of the text.
+     */
+    abstract static class CountedEvent extends DocumentEvent {
+
+        @Label("Characters")
+        long characters;
+
+        @Label("Words")
+        long words;
+
+        @Label("Sentences")
+        long sentences;
+
+        @Label("Syllables")
+        @Description("Zero when no requested index needs syllables")
+        long syllables;
+
+        @Label("Polysyllables")
+        @Description("Zero when no requested index needs syllables")
+        long polysyllables;
+
+        /**
+         * Copies the counts of the text, leaving out those that were not gathered.
+         * @param statistics The counts.
+         * @param metrics    The counts that were gathered.
+         */
+        final void setCounts(TextStatistics statistics, Set<TextMetric> metrics) {
+            characters = statistics.getCharacterCount();
+            words = statistics.getWordCount();
+            sentences = statistics.getSentenceCount();
+            if (metrics.contains(TextMetric.SYLLABLES)) {
+                syllables = statistics.getSyllableCount();
+            }
+            if (metrics.contains(TextMetric.POLYSYLLABLES)) {
+                polysyllables = statistics.getPolysyllableCount();
+            }
+        }
+    }
+
+    @Name("readability.Read")
+    @Label("Read Text")
+    @Description("A whole input read into memory before it is scanned")
+    static final class ReadEvent extends DocumentEvent {
+
+        /**
+         * Fills in and commits the event, if it is being recorded.
+         * @param document The name of the input.
+         * @param bytes    The number of bytes read.
+         */
+        void commit(String document, long bytes) {
+            if (shouldCommit()) {
+                this.document = document;
+                this.bytes = bytes;
+                commit();
+            }
+        }
+    }
+
+    @Name("readability.Scan")
+    @Label("Scan Text")
+    @Description("Single pass counting sentences, words, characters and syllables; includes reading for streamed inputs")
+    static final class ScanEvent extends CountedEvent {
+
+        @Label("Syllables Counted")
+        boolean syllablesCounted;
+    }
+
+    @Name("readability.Score")
+    @Label("Calculate Scores")
+    @Description("Readability indices calculated from the counts")
+    static final class ScoreEvent extends CountedEvent {
+
+        @Label("Indices")
+        String indices;
+    }
+
+    @Name("readability.Output")
+    @Label("Write Result")
+    @Description("Result of one document encoded for output, including any write to the underlying stream")
+    static final class OutputEvent extends DocumentEvent {
+
+        @Label("Format")
+        String format;
+
+        @Label("Written")
+        @Description("Size of the encoded result")
+        @DataAmount
+        long written;
+    }
+}
@@ -0,0 +1,467 @@
+package readability;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-running HTTP front end, so callers pay for JVM startup once rather than per document.
+ * <p>
+ * {@code POST /score} takes either raw text (decoded with the charset of the Content-Type,
+ * UTF-8 by default) or a JSON object {@code {"text": "..."}} when the Content-Type is
+ * {@code application/json}, and answers with the counts, all four scores and their
+ * age/grade mapping. {@code GET /health} answers "ok", and {@code GET /metrics} the metrics
+ * of the process in the Prometheus text format, including the admission queue.
+ * <p>
+ * Requests are handled on the I/O executor (virtual threads when available), so thousands of
+ * idle or slow connections cost little. Before its body is read, a request reserves memory for
+ * it against a budget of a quarter of the maximum heap: its Content-Length, or the largest
+ * accepted body when it is sent in chunks, {@value #BODY_COST_FACTOR} times over for the decoded
+ * text. The body is then read in full, and only a fixed number of requests, one per processor
+ * by default, score at the same time. A request that waits too long for either is turned away
+ * with 503, which keeps the latency of admitted requests close to their scoring time and the
+ * heap bounded instead of degrading for everyone.
+ * <p>
+ * The server listens on the address it is given, the loopback address unless the command line
+ * asks for another, like the metrics port.
+ */
+final class ScoringServer {
+
+    /** Bodies larger than this are rejected with 413. */
+    static final int MAX_BODY_SIZE = 16 * 1024 * 1024;
+
+    private static final int BACKLOG = 1024;
+    private static final long ADMISSION_TIMEOUT_MILLIS = 5000;
+    private static final int MAX_JSON_DEPTH = 64;
+    // A buffered body costs its bytes, its decoded text and, for JSON, the unescaped "text" member
+    private static final int BODY_COST_FACTOR = 5;
+    // The budget is counted in KiB so that it fits the int permits of a semaphore
+    private static final int PERMIT_SIZE = 1024;
+
+    private static final String REQUESTS_WAITING_GAUGE = "readability_server_requests_waiting";
+    private static final String REQUESTS_SCORING_GAUGE = "readability_server_requests_scoring";
+    private static final String BUFFERED_BYTES_GAUGE = "readability_server_buffered_bytes";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Semaphore scoringPermits;
+    private final Semaphore memory;
+    private final int memoryPermits;
+    private final SyllableSource syllableSource;
+
+    /**
+     * Constructor for ScoringServer. The server does not accept requests until started.
+     * @param address        The address to listen on, e.g. the loopback address.
+     * @param port           The port to listen on, or 0 for any free port.
+     * @param scoringThreads Number of requests allowed to score at the same time.
+     * @param syllableSource The source of per-word syllable counts shared by all requests, or null.
+     * @throws IOException If the port cannot be bound.
+     */
+    ScoringServer(InetAddress address, int port, int scoringThreads, SyllableSource syllableSource) throws IOException {
+        if (scoringThreads < 1) {
+            throw new IllegalArgumentException("The number of scoring threads must be positive.");
+        }
+        this.server = HttpServer.create(new InetSocketAddress(address, port), BACKLOG);
+        this.executor = ThreadPools.newIoExecutor();
+        this.scoringPermits = new Semaphore(scoringThreads, true);
+        long memoryBudget = Math.max(Runtime.getRuntime().maxMemory() / 4, (MAX_BODY_SIZE + 1L) * BODY_COST_FACTOR);
+        this.memoryPermits = (int) Math.min(memoryBudget / PERMIT_SIZE, Integer.MAX_VALUE);
+        // Fair, so that a large body is not overtaken forever by smaller ones
+        this.memory = new Semaphore(memoryPermits, true);
+        this.syllableSource = syllableSource;
+        server.setExecutor(executor);
+        server.createContext("/score", this::handleScore);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/metrics", MetricsExporter.handler(PipelineMetrics.REGISTRY));
+        PipelineMetrics.REGISTRY.gauge(REQUESTS_WAITING_GAUGE,
+                "Requests waiting for memory or a scoring permit",
+                () -> memory.getQueueLength() + scoringPermits.getQueueLength());
+        PipelineMetrics.REGISTRY.gauge(REQUESTS_SCORING_GAUGE,
+                "Requests being scored", () -> scoringThreads - scoringPermits.availablePermits());
+        PipelineMetrics.REGISTRY.gauge(BUFFERED_BYTES_GAUGE,
+                "Bytes reserved for request bodies against the memory budget",
+                () -> (double) (memoryPermits - memory.availablePermits()) * PERMIT_SIZE);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting connections, waits for the exchanges in progress and removes the
+     * gauges of this server.
+     * @param delaySeconds Maximum time to wait for the exchanges in progress.
+     */
+    void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        PipelineMetrics.REGISTRY.unregister(REQUESTS_WAITING_GAUGE);
+        PipelineMetrics.REGISTRY.unregister(REQUESTS_SCORING_GAUGE);
+        PipelineMetrics.REGISTRY.unregister(BUFFERED_BYTES_GAUGE);
+    }
+
+    /**
+     * Gets the address the server listens on, with the bound port, useful when it was
+     * started on port 0.
+     * @return The bound address.
+     */
+    InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Gets the port the server listens on, useful when it was started on port 0.
+     * @return The bound port.
+     */
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // --- Handlers ---
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use GET.");
+                return;
+            }
+            send(exchange, 200, "text/plain; charset=utf-8", "ok");
+        }
+    }
+
+    private void handleScore(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Use POST.");
+                return;
+            }
+            long declaredSize = contentLength(exchange);
+            if (declaredSize > MAX_BODY_SIZE) {
+                sendError(exchange, 413, "The body exceeds " + MAX_BODY_SIZE + " bytes.");
+                return;
+            }
+            // Nothing is read before the memory for the body is granted
+            int permits = permitsFor(declaredSize >= 0 ? declaredSize : MAX_BODY_SIZE + 1L);
+            if (!memory.tryAcquire(permits, ADMISSION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                sendBusy(exchange);
+                return;
+            }
+            try {
+                byte[] body;
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = in.readNBytes(MAX_BODY_SIZE + 1);
+                }
+                if (body.length > MAX_BODY_SIZE) {
+                    sendError(exchange, 413, "The body exceeds " + MAX_BODY_SIZE + " bytes.");
+                    return;
+                }
+                int used = permitsFor(body.length);
+                if (used < permits) {
+                    memory.release(permits - used);
+                    permits = used;
+                }
+                score(exchange, body);
+            } finally {
+                memory.release(permits);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Decodes and scores a request body within a scoring permit, and sends the response.
+     */
+    private void score(HttpExchange exchange, byte[] body) throws IOException, InterruptedException {
+        CharSequence text;
+        try {
+            text = decode(body, exchange.getRequestHeaders().getFirst("Content-Type"));
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+            return;
+        }
+
+        if (!scoringPermits.tryAcquire(ADMISSION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            sendBusy(exchange);
+            return;
+        }
+        String response;
+        try {
+            long start = System.nanoTime();
+            TextStatistics statistics = new TextScanner(true, syllableSource).accept(text).finish().getStatistics();
+            PipelineMetrics.documentScanned(start, body.length);
+            response = toJson(Readability.fromStatistics(statistics));
+        } finally {
+            scoringPermits.release();
+        }
+        send(exchange, 200, "application/json", response);
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Gets the declared size of a request body.
+     * @return The Content-Length, or -1 if the body is sent in chunks.
+     */
+    private static long contentLength(HttpExchange exchange) {
+        String value = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1; // The HTTP server has already rejected it
+        }
+    }
+
+    /**
+     * Gets the permits reserving the memory needed to buffer, decode and score a body.
+     */
+    private int permitsFor(long bodySize) {
+        long cost = Math.max(bodySize, 1) * BODY_COST_FACTOR;
+        return (int) Math.min((cost + PERMIT_SIZE - 1) / PERMIT_SIZE, memoryPermits);
+    }
+
+    /**
+     * Decodes a request body into the text to score.
+     * @throws IllegalArgumentException If the charset is unsupported or the JSON is malformed.
+     */
+    private static CharSequence decode(byte[] body, String contentType) {
+        String mediaType = "";
+        Charset charset = StandardCharsets.UTF_8;
+        if (contentType != null) {
+            String[] parts = contentType.split(";");
+            mediaType = parts[0].trim().toLowerCase(Locale.ROOT);
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+                    String name = parameter.substring(8).replace("\"", "");
+                    try {
+                        charset = Charset.forName(name);
+                    } catch (RuntimeException e) {
+                        throw new IllegalArgumentException("Unsupported charset: " + name);
+                    }
+                }
+            }
+        }
+        String decoded = new String(body, charset);
+        if (mediaType.equals("application/json") || mediaType.endsWith("+json")) {
+            return new JsonText(decoded).readTextField();
+        }
+        return decoded;
+    }
+
+    private static String toJson(Readability readability) {
+        StringBuilder sb = new StringBuilder(512);
+        sb.append("{\"words\":").append(readability.getWordCount())
+                .append(",\"sentences\":").append(readability.getSentenceCount())
+                .append(",\"characters\":").append(readability.getCharacterCount())
+                .append(",\"syllables\":").append(readability.getSyllableCount())
+                .append(",\"polysyllables\":").append(readability.getPolysyllableCount())
+                .append(",\"scores\":{");
+        double totalAge = 0;
+        String separator = "";
+        for (ReadabilityScoreMapping.IndexType type : ReadabilityScoreMapping.IndexType.values()) {
+            ReadabilityScoreInfo info = readability.getScoreInfo(type);
+            sb.append(separator).append('"').append(type).append("\":{\"name\":");
+            ResultFormat.appendJsonString(sb, type.getDisplayName());
+            sb.append(",\"score\":");
+            ResultWriter.appendFixed2(sb, readability.getScore(type));
+            sb.append(",\"lowerBoundAge\":").append(info.lowerBoundAge())
+                    .append(",\"upperBoundAge\":").append(info.upperBoundAge())
+                    .append(",\"gradeLevel\":");
+            ResultFormat.appendJsonString(sb, info.gradeLevel());
+            sb.append('}');
+            totalAge += info.getApproxAge();
+            separator = ",";
+        }
+        int indexCount = ReadabilityScoreMapping.IndexType.values().length;
+        sb.append("},\"averageAge\":");
+        ResultWriter.appendFixed2(sb, totalAge / indexCount);
+        return sb.append('}').toString();
+    }
+
+    private static void sendBusy(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        sendError(exchange, 503, "The server is busy.");
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        ResultFormat.appendJsonString(sb, message);
+        send(exchange, status, "application/json", sb.append('}').toString());
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Just enough of a JSON reader to pull the "text" member out of a request object;
+     * every other member is skipped.
+     */
+    private static final class JsonText {
+
+        private final String json;
+        private int position;
+
+        JsonText(String json) {
+            this.json = json;
+        }
+
+        /**
+         * Reads the whole document, which must be an object with a string member "text".
+         * @return The unescaped value of "text".
+         * @throws IllegalArgumentException If the JSON is malformed or has no "text" string.
+         */
+        String readTextField() {
+            String text = null;
+            expect('{');
+            if (peek() != '}') {
+                do {
+                    String name = readString();
+                    expect(':');
+                    if (name.equals("text") && peek() == '"') {
+                        text = readString();
+                    } else {
+                        skipValue(1);
+                    }
+                } while (consume(','));
+            }
+            expect('}');
+            if (peek() != 0) {
+                throw error("Unexpected content after the JSON object");
+            }
+            if (text == null) {
+                throw new IllegalArgumentException("The JSON object has no \"text\" string.");
+            }
+            return text;
+        }
+
+        /** Returns the next non-whitespace character without consuming it, or 0 at the end. */
+        private char peek() {
+            while (position < json.length()) {
+                char c = json.charAt(position);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                    return c;
+                }
+                position++;
+            }
+            return 0;
+        }
+
+        private boolean consume(char expected) {
+            if (peek() == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!consume(expected)) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (position >= json.length()) {
+                    break;
+                }
+                char escaped = json.charAt(position++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> sb.append(escaped);
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        if (position + 4 > json.length()) {
+                            throw error("Truncated unicode escape");
+                        }
+                        int code = 0;
+                        for (int end = position + 4; position < end; position++) {
+                            // Exactly four hex digits: no sign, as Integer.parseInt would accept
+                            int digit = Character.digit(json.charAt(position), 16);
+                            if (digit < 0) {
+                                throw error("Invalid unicode escape");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        sb.append((char) code);
+                    }
+                    default -> throw error("Invalid escape '\\" + escaped + "'");
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private void skipValue(int depth) {
+            if (depth > MAX_JSON_DEPTH) {
+                throw error("Nesting too deep");
+            }
+            char c = peek();
+            switch (c) {
+                case '"' -> readString();
+                case '{', '[' -> {
+                    char close = c == '{' ? '}' : ']';
+                    position++;
+                    if (consume(close)) {
+                        return;
+                    }
+                    do {
+                        if (c == '{') {
+                            readString();
+                            expect(':');
+                        }
+                        skipValue(depth + 1);
+                    } while (consume(','));
+                    expect(close);
+                }
+                default -> {
+                    // Number, true, false or null
+                    int start = position;
+                    while (position < json.length() && "{}[],: \t\n\r\"".indexOf(json.charAt(position)) < 0) {
+                        position++;
+                    }
+                    if (position == start) {
+                        throw error("Expected a value");
+                    }
+                }
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + position + " of the JSON body.");
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package readability;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Counts of every sentence and paragraph of a text, recorded during the single scan that
+ * also gives the document totals.
+ * <p>
+ * Each sentence takes one slot in a few parallel {@code int[]} arrays: its start and end
+ * offsets, its word, character, syllable and polysyllable counts, and the paragraph it starts
+ * in, i.e. 28 bytes whatever its length. The counts are the differences of the scanner's
+ * running totals between two sentence ends, so they add up exactly to the document totals.
+ * Scores of a sentence or of a paragraph are computed from these arrays on demand, without
+ * looking at the text again.
+ * <p>
+ * A sentence starts at its first word character and ends right after its terminator, or
+ * after its last non-whitespace character for an unterminated last sentence. A paragraph
+ * ends at a blank line, i.e. at two line feeds separated by whitespace only, between two
+ * sentences; a blank line inside a sentence that has no terminator yet does not end it,
+ * since the sentence cannot be split there. Offsets are {@code int}, so texts are limited
+ * to 2^31 - 1 characters. Instances are immutable once created.
+ */
+public final class SentenceBreakdown {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private int sentenceCount;
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private int[] ends = new int[INITIAL_CAPACITY];
+    private int[] words = new int[INITIAL_CAPACITY];
+    private int[] characters = new int[INITIAL_CAPACITY];
+    private int[] syllables = new int[INITIAL_CAPACITY];
+    private int[] polysyllables = new int[INITIAL_CAPACITY];
+    private int[] paragraphs = new int[INITIAL_CAPACITY];
+    private int paragraphCount;
+    // Index of the first sentence of each paragraph, plus the sentence count at the end
+    private int[] paragraphStarts;
+    private TextStatistics statistics;
+
+    private SentenceBreakdown() {
+    }
+
+    /**
+     * Scans a text, recording the counts of each of its sentences.
+     * @param text The text.
+     * @return The breakdown.
+     */
+    public static SentenceBreakdown of(CharSequence text) {
+        return of(text, null);
+    }
+
+    /**
+     * Scans a text with a source of syllable counts, recording the counts of each of its sentences.
+     * @param text   The text.
+     * @param source Source of syllable counts, or null for the streaming heuristic.
+     * @return The breakdown.
+     */
+    static SentenceBreakdown of(CharSequence text, SyllableSource source) {
+        Recorder recorder = new Recorder(source);
+        for (int i = 0, length = text.length(); i < length; i++) {
+            recorder.accept(text.charAt(i));
+        }
+        return recorder.finish();
+    }
+
+    /**
+     * Scans a stream of characters, recording the counts of each of its sentences. The
+     * offsets are positions in the stream, so the text itself is not retained.
+     * @param reader The characters, not closed by this method.
+     * @return The breakdown.
+     * @throws IOException If the stream cannot be read.
+     */
+    public static SentenceBreakdown of(Reader reader) throws IOException {
+        return of(reader, null);
+    }
+
+    /**
+     * Scans a stream of characters with a source of syllable counts.
+     * @param reader The characters, not closed by this method.
+     * @param source Source of syllable counts, or null for the streaming heuristic.
+     * @return The breakdown.
+     * @throws IOException If the stream cannot be read.
+     */
+    static SentenceBreakdown of(Reader reader, SyllableSource source) throws IOException {
+        Recorder recorder = new Recorder(source);
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                recorder.accept(buffer[i]);
+            }
+        }
+        return recorder.finish();
+    }
+
+    // --- Document ---
+
+    /**
+     * Gets the totals of the whole text, as a plain scan would give them.
+     * @return The statistics.
+     */
+    public TextStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Scores the whole text.
+     * @return The Readability of the text.
+     */
+    public Readability getReadability() {
+        return Readability.fromStatistics(statistics);
+    }
+
+    // --- Sentences ---
+
+    /**
+     * Gets the number of recorded sentences.
+     * @return The sentence count.
+     */
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * Gets the offset of the first character of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The start offset.
+     */
+    public int getStart(int sentence) {
+        return starts[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets the offset just after the last character of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The end offset.
+     */
+    public int getEnd(int sentence) {
+        return ends[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets the number of words of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The count.
+     */
+    public int getWordCount(int sentence) {
+        return words[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets the number of characters of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The count.
+     */
+    public int getCharacterCount(int sentence) {
+        return characters[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets the number of syllables of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The count.
+     */
+    public int getSyllableCount(int sentence) {
+        return syllables[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets the number of polysyllables of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The count.
+     */
+    public int getPolysyllableCount(int sentence) {
+        return polysyllables[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets the paragraph a sentence starts in.
+     * @param sentence Index of the sentence.
+     * @return Index of the paragraph.
+     */
+    public int getParagraph(int sentence) {
+        return paragraphs[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Scores a single sentence, without allocating anything.
+     * @param sentence Index of the sentence.
+     * @param type     The index to compute.
+     * @return The score.
+     */
+    public double getScore(int sentence, ReadabilityScoreMapping.IndexType type) {
+        Objects.checkIndex(sentence, sentenceCount);
+        return TextStatistics.score(type, 1, words[sentence], characters[sentence],
+                syllables[sentence], polysyllables[sentence]);
+    }
+
+    /**
+     * Finds the sentences with the highest scores, i.e. the hardest to read.
+     * @param type  The index to rank sentences by.
+     * @param count Maximum number of sentences to return.
+     * @return Indices of the hardest sentences, hardest first; ties keep text order.
+     * @throws IllegalArgumentException If the count is negative.
+     */
+    public int[] hardest(ReadabilityScoreMapping.IndexType type, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of sentences cannot be negative.");
+        }
+        int size = Math.min(count, sentenceCount);
+        if (size == 0) {
+            return new int[0];
+        }
+        double[] scores = new double[sentenceCount];
+        for (int i = 0; i < sentenceCount; i++) {
+            scores[i] = getScore(i, type);
+        }
+
+        // Min-heap of the best sentences so far: its root is the easiest one kept
+        int[] heap = new int[size];
+        for (int i = 0; i < sentenceCount; i++) {
+            if (i < size) {
+                heap[i] = i;
+                siftUp(heap, i, scores);
+            } else if (isHarder(i, heap[0], scores)) {
+                heap[0] = i;
+                siftDown(heap, size, scores);
+            }
+        }
+        for (int end = size - 1; end > 0; end--) {
+            int easiest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = easiest;
+            siftDown(heap, end, scores);
+        }
+        return heap;
+    }
+
+    // --- Paragraphs ---
+
+    /**
+     * Gets the number of paragraphs holding at least one sentence.
+     * @return The paragraph count.
+     */
+    public int getParagraphCount() {
+        return paragraphCount;
+    }
+
+    /**
+     * Gets the index of the first sentence of a paragraph.
+     * @param paragraph Index of the paragraph.
+     * @return Index of the sentence.
+     */
+    public int getFirstSentence(int paragraph) {
+        return paragraphStarts[Objects.checkIndex(paragraph, paragraphCount)];
+    }
+
+    /**
+     * Gets the number of sentences of a paragraph.
+     * @param paragraph Index of the paragraph.
+     * @return The sentence count.
+     */
+    public int getParagraphSentenceCount(int paragraph) {
+        Objects.checkIndex(paragraph, paragraphCount);
+        return paragraphStarts[paragraph + 1] - paragraphStarts[paragraph];
+    }
+
+    /**
+     * Adds up the counts of the sentences of a paragraph.
+     * @param paragraph Index of the paragraph.
+     * @return The statistics of the paragraph.
+     */
+    public TextStatistics getParagraphStatistics(int paragraph) {
+        Objects.checkIndex(paragraph, paragraphCount);
+        long wordCount = 0;
+        long characterCount = 0;
+        long syllableCount = 0;
+        long polysyllableCount = 0;
+        for (int i = paragraphStarts[paragraph]; i < paragraphStarts[paragraph + 1]; i++) {
+            wordCount += words[i];
+            characterCount += characters[i];
+            syllableCount += syllables[i];
+            polysyllableCount += polysyllables[i];
+        }
+        return TextStatistics.of(paragraphStarts[paragraph + 1] - paragraphStarts[paragraph],
+                wordCount, characterCount, syllableCount, polysyllableCount);
+    }
+
+    /**
+     * Scores a paragraph.
+     * @param paragraph Index of the paragraph.
+     * @return The Readability of the paragraph.
+     */
+    public Readability getParagraphReadability(int paragraph) {
+        return Readability.fromStatistics(getParagraphStatistics(paragraph));
+    }
+
+    // --- Private Helper Methods ---
+
+    private static boolean isHarder(int sentence, int other, double[] scores) {
+        int comparison = Double.compare(scores[sentence], scores[other]);
+        return comparison > 0 || comparison == 0 && sentence < other;
+    }
+
+    private static void siftUp(int[] heap, int position, double[] scores) {
+        int sentence = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!isHarder(heap[parent], sentence, scores)) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = sentence;
+    }
+
+    private static void siftDown(int[] heap, int size, double[] scores) {
+        int sentence = heap[0];
+        int position = 0;
+        int child;
+        while ((child = 2 * position + 1) < size) {
+            if (child + 1 < size && isHarder(heap[child], heap[child + 1], scores)) {
+                child++;
+            }
+            if (!isHarder(sentence, heap[child], scores)) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = sentence;
+    }
+
+    private void add(int start, int end, int paragraph, int wordCount, int characterCount,
+                     int syllableCount, int polysyllableCount) {
+        if (sentenceCount == starts.length) {
+            int capacity = starts.length * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            words = Arrays.copyOf(words, capacity);
+            characters = Arrays.copyOf(characters, capacity);
+            syllables = Arrays.copyOf(syllables, capacity);
+            polysyllables = Arrays.copyOf(polysyllables, capacity);
+            paragraphs = Arrays.copyOf(paragraphs, capacity);
+        }
+        starts[sentenceCount] = start;
+        ends[sentenceCount] = end;
+        words[sentenceCount] = wordCount;
+        characters[sentenceCount] = characterCount;
+        syllables[sentenceCount] = syllableCount;
+        polysyllables[sentenceCount] = polysyllableCount;
+        paragraphs[sentenceCount] = paragraph;
+        sentenceCount++;
+    }
+
+    /**
+     * Feeds a scanner one character at a time, tracking the offsets the scanner does not
+     * know about, and records a sentence each time the scanner ends one.
+     */
+    private static final class Recorder {
+
+        private final SentenceBreakdown breakdown = new SentenceBreakdown();
+        private final TextScanner scanner;
+        private int position;
+        private int sentenceStart = -1;
+        private int contentEnd; // Just after the last visible character
+        private int paragraph;
+        private int lineFeeds;
+        private boolean paragraphEnded;
+        // Running totals at the end of the previous sentence
+        private long words;
+        private long characters;
+        private long syllables;
+        private long polysyllables;
+
+        Recorder(SyllableSource source) {
+            this.scanner = (source == null ? new TextScanner() : new TextScanner(true, source))
+                    .setSentenceListener(this::sentenceEnded);
+        }
+
+        void accept(char c) {
+            if (position == Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The text is too long for a sentence breakdown.");
+            }
+            if (TextScanner.isWhitespace(c)) {
+                // Only between sentences, as the scanner cannot split one at a blank line
+                if (c == '\n' && ++lineFeeds == 2 && sentenceStart < 0 && breakdown.sentenceCount > 0) {
+                    paragraphEnded = true;
+                }
+            } else {
+                lineFeeds = 0;
+                if (sentenceStart < 0 && TextScanner.isWordCharacter(c)) {
+                    sentenceStart = position;
+                    if (paragraphEnded) {
+                        paragraph++;
+                        paragraphEnded = false;
+                    }
+                }
+                if (!TextScanner.isControl(c)) {
+                    contentEnd = position + 1; // Control characters at the end of the text do not count
+                }
+            }
+            position++;
+            scanner.accept(c);
+        }
+
+        SentenceBreakdown finish() {
+            breakdown.statistics = scanner.finish().getStatistics();
+            if (breakdown.sentenceCount > 0) {
+                // Terminators after the last sentence still count as its characters
+                breakdown.characters[breakdown.sentenceCount - 1] += (int) (scanner.getCharacterCount() - characters);
+            }
+            breakdown.paragraphCount = breakdown.sentenceCount == 0 ? 0 : paragraph + 1;
+            int[] paragraphStarts = new int[breakdown.paragraphCount + 1];
+            for (int i = breakdown.sentenceCount - 1; i >= 0; i--) {
+                paragraphStarts[breakdown.paragraphs[i]] = i;
+            }
+            paragraphStarts[breakdown.paragraphCount] = breakdown.sentenceCount;
+            breakdown.paragraphStarts = paragraphStarts;
+            return breakdown;
+        }
+
+        private void sentenceEnded(TextScanner scanner) {
+            // A terminator ends the sentence it follows; otherwise the text ended
+            breakdown.add(sentenceStart, contentEnd, paragraph,
+                    (int) (scanner.getWordCount() - words),
+                    (int) (scanner.getCharacterCount() - characters),
+                    (int) (scanner.getSyllableCount() - syllables),
+                    (int) (scanner.getPolysyllableCount() - polysyllables));
+            words = scanner.getWordCount();
+            characters = scanner.getCharacterCount();
+            syllables = scanner.getSyllableCount();
+            polysyllables = scanner.getPolysyllableCount();
+            sentenceStart = -1;
+        }
+    }
+}
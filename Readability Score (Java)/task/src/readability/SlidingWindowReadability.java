@@ -0,0 +1,206 @@
+package readability;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolling readability over an unbounded text stream, such as a chat or a live transcript,
+ * limited to the last N sentences or to the sentences that ended in the last T seconds.
+ * <p>
+ * Text is fed in pieces of any size to a single {@link TextScanner}, and nothing of it is
+ * retained. Every time the scanner ends a sentence, its running counts are pushed into a ring
+ * of primitive arrays, and the oldest entries are dropped once they leave the window. The
+ * counts of the window are the difference between the newest entry and the entry just before
+ * the window, so a new sentence costs O(1) whatever the window size, and so does a query.
+ * <p>
+ * Only complete sentences are scored: words typed after the last terminator join the window
+ * when their sentence ends. This class is not thread-safe; a feed written by one thread and
+ * read by another must be synchronised externally.
+ */
+public final class SlidingWindowReadability {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxSentences;
+    private final long maxAgeNanos;
+    private final LongSupplier clock;
+    private final TextScanner scanner;
+
+    // Ring of running counts at each sentence end; the first entry is the base just before the window
+    private long[] words;
+    private long[] characters;
+    private long[] syllables;
+    private long[] polysyllables;
+    private long[] endTimes;
+    private int head;
+    private int size;
+
+    /**
+     * Creates a window over the last sentences of a stream.
+     * @param sentences Number of sentences in the window.
+     * @return The window.
+     * @throws IllegalArgumentException If the number of sentences is not positive.
+     */
+    public static SlidingWindowReadability lastSentences(int sentences) {
+        if (sentences < 1) {
+            throw new IllegalArgumentException("The window must hold at least one sentence.");
+        }
+        return new SlidingWindowReadability(sentences, Long.MAX_VALUE, System::nanoTime);
+    }
+
+    /**
+     * Creates a window over the sentences of a stream that ended within a period of time.
+     * @param duration Length of the window.
+     * @return The window.
+     * @throws IllegalArgumentException If the duration is not positive.
+     */
+    public static SlidingWindowReadability lastDuration(Duration duration) {
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("The window duration must be positive.");
+        }
+        return new SlidingWindowReadability(Integer.MAX_VALUE, duration.toNanos(), System::nanoTime);
+    }
+
+    /**
+     * Creates a window bounded by a number of sentences and an age, both optional.
+     * @param maxSentences Number of sentences in the window, or Integer.MAX_VALUE for no limit.
+     * @param maxAgeNanos  Maximum age of a sentence end, or Long.MAX_VALUE for no limit.
+     * @param clock        Source of the current time, in nanoseconds.
+     */
+    SlidingWindowReadability(int maxSentences, long maxAgeNanos, LongSupplier clock) {
+        this.maxSentences = maxSentences;
+        this.maxAgeNanos = maxAgeNanos;
+        this.clock = clock;
+        int capacity = maxSentences < INITIAL_CAPACITY ? Integer.highestOneBit(maxSentences) << 1 : INITIAL_CAPACITY;
+        allocate(capacity);
+        // The base of an empty window: nothing counted yet
+        size = 1;
+        this.scanner = new TextScanner().setSentenceListener(this::sentenceEnded);
+    }
+
+    /**
+     * Feeds the next piece of the stream.
+     * @param text The text that follows what was fed so far.
+     * @return This window.
+     */
+    public SlidingWindowReadability accept(CharSequence text) {
+        scanner.accept(text);
+        return this;
+    }
+
+    /**
+     * Feeds the next piece of the stream from a character buffer.
+     * @param buffer The characters.
+     * @param offset Index of the first character.
+     * @param length Number of characters.
+     * @return This window.
+     */
+    public SlidingWindowReadability accept(char[] buffer, int offset, int length) {
+        scanner.accept(buffer, offset, length);
+        return this;
+    }
+
+    // --- Getters ---
+
+    /**
+     * Gets the number of sentences currently in the window.
+     * @return The sentence count.
+     */
+    public int getSentenceCount() {
+        evictExpired();
+        return size - 1;
+    }
+
+    /**
+     * Gets the counts of the sentences currently in the window.
+     * @return The statistics, empty if no sentence is in the window.
+     */
+    public TextStatistics getStatistics() {
+        evictExpired();
+        if (size == 1) {
+            return TextStatistics.EMPTY;
+        }
+        int base = head;
+        int last = index(size - 1);
+        return TextStatistics.of(size - 1,
+                words[last] - words[base],
+                characters[last] - characters[base],
+                syllables[last] - syllables[base],
+                polysyllables[last] - polysyllables[base]);
+    }
+
+    /**
+     * Scores the sentences currently in the window.
+     * @return The Readability of the window.
+     */
+    public Readability getReadability() {
+        return Readability.fromStatistics(getStatistics());
+    }
+
+    // --- Private Helper Methods ---
+
+    private void sentenceEnded(TextScanner scanner) {
+        if (size == words.length) {
+            if (size - 1 >= maxSentences) {
+                removeOldest();
+            } else {
+                allocate(words.length * 2);
+            }
+        }
+        int entry = index(size);
+        words[entry] = scanner.getWordCount();
+        characters[entry] = scanner.getCharacterCount();
+        syllables[entry] = scanner.getSyllableCount();
+        polysyllables[entry] = scanner.getPolysyllableCount();
+        endTimes[entry] = clock.getAsLong();
+        size++;
+        if (size - 1 > maxSentences) {
+            removeOldest();
+        }
+        evictExpired();
+    }
+
+    /**
+     * Drops the sentences that ended before the window, so the base moves past them.
+     */
+    private void evictExpired() {
+        if (maxAgeNanos == Long.MAX_VALUE) {
+            return;
+        }
+        long now = clock.getAsLong();
+        while (size > 1 && now - endTimes[index(1)] > maxAgeNanos) {
+            removeOldest();
+        }
+    }
+
+    private void removeOldest() {
+        head = (head + 1) & (words.length - 1);
+        size--;
+    }
+
+    private int index(int position) {
+        return (head + position) & (words.length - 1);
+    }
+
+    /**
+     * Resizes the ring, keeping its entries in order.
+     */
+    private void allocate(int capacity) {
+        long[][] columns = {words, characters, syllables, polysyllables, endTimes};
+        for (int c = 0; c < columns.length; c++) {
+            long[] grown = new long[capacity];
+            if (columns[c] != null) {
+                for (int i = 0; i < size; i++) {
+                    grown[i] = columns[c][index(i)];
+                }
+            }
+            columns[c] = grown;
+        }
+        words = columns[0];
+        characters = columns[1];
+        syllables = columns[2];
+        polysyllables = columns[3];
+        endTimes = columns[4];
+        head = 0;
+    }
+}
@@ -0,0 +1,263 @@
+package readability;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache from word to syllable count, meant to be shared by every
+ * scanner of a process.
+ * <p>
+ * Words are normalised to ASCII lowercase, which never changes their count. The table is
+ * set-associative: a word can only live in one of the {@value #WAYS} slots of the set its
+ * hash selects, so a lookup reads at most {@value #WAYS} immutable entries and compares the
+ * characters in place; a hit allocates nothing. Slots are published through an
+ * {@link AtomicReferenceArray}, so readers never lock.
+ * <p>
+ * Admission follows TinyLFU: every access is recorded in a count-min sketch of 4-bit
+ * counters, and on a miss in a full set the new word only replaces the set's least frequent
+ * entry if it has been seen more often. One-off words therefore cannot flush frequent ones
+ * like "the". Counters are halved periodically so that the estimate follows the recent
+ * text. The sketch is updated without synchronisation: a lost increment under contention
+ * only makes an estimate slightly lower, which admission tolerates.
+ */
+final class SyllableCache implements SyllableSource {
+
+    /** Largest supported maximum size. */
+    static final int MAX_SIZE = 1 << 28;
+
+    /** Longer words are passed straight to the loader without being cached. */
+    static final int MAX_WORD_LENGTH = 32;
+
+    private static final int WAYS = 4;
+    // Aging period of the sketch, in recorded accesses per cached entry
+    private static final int SAMPLE_FACTOR = 10;
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+
+    private final SyllableSource loader;
+    private final AtomicReferenceArray<Entry> slots;
+    private final int setMask;
+
+    // Count-min sketch: four rows of 4-bit counters, sixteen per long and one long per entry, so
+    // that each row has four counters per entry and an aging period leaves most of them low
+    private final long[] sketch;
+    private final int sketchMask;
+    private final int sampleSize;
+    private int additions; // Racy on purpose, see the class comment
+
+    // Statistics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates a cache in front of the vowel-group heuristic.
+     * @param maximumSize Maximum number of words, rounded up to a power of two of at least {@value #WAYS}.
+     */
+    SyllableCache(int maximumSize) {
+        this(maximumSize, SyllableSource.HEURISTIC);
+    }
+
+    /**
+     * Creates a cache in front of another source of syllable counts.
+     * @param maximumSize Maximum number of words, rounded up to a power of two of at least {@value #WAYS}.
+     * @param loader      Where counts come from on a miss; words it does not know are not cached.
+     */
+    SyllableCache(int maximumSize, SyllableSource loader) {
+        if (maximumSize < 1 || maximumSize > MAX_SIZE) {
+            throw new IllegalArgumentException("The maximum size must be between 1 and " + MAX_SIZE + ".");
+        }
+        int capacity = Math.max(WAYS, Integer.highestOneBit(maximumSize - 1) << 1);
+        this.loader = loader;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.setMask = capacity / WAYS - 1;
+        this.sketch = new long[capacity];
+        this.sketchMask = sketch.length - 1;
+        this.sampleSize = SAMPLE_FACTOR * capacity;
+    }
+
+    /**
+     * Gets the syllable count of a word, loading and possibly caching it on a miss.
+     * @param word   The buffer holding the word.
+     * @param offset Index of the first character of the word.
+     * @param length Length of the word, at least 1.
+     * @return The number of syllables, or {@link #UNKNOWN} if the loader does not know the word.
+     */
+    @Override
+    public int count(char[] word, int offset, int length) {
+        if (length > MAX_WORD_LENGTH) {
+            return loader.count(word, offset, length);
+        }
+        int hash = hash(word, offset, length);
+        recordAccess(hash);
+
+        int first = (hash & setMask) * WAYS;
+        for (int i = first; i < first + WAYS; i++) {
+            Entry entry = slots.get(i);
+            if (entry != null && entry.hash == hash && entry.matches(word, offset, length)) {
+                hits.increment();
+                return entry.syllables;
+            }
+        }
+
+        misses.increment();
+        int syllables = loader.count(word, offset, length);
+        if (syllables != UNKNOWN) {
+            admit(first, new Entry(hash, word, offset, length, syllables));
+        }
+        return syllables;
+    }
+
+    /**
+     * Gets a snapshot of the cache statistics.
+     * @return The statistics.
+     */
+    Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size.sum(), slots.length());
+    }
+
+    /**
+     * Cache statistics, as counted since the cache was created.
+     * @param hits      Lookups answered from the cache.
+     * @param misses    Lookups that went to the loader.
+     * @param evictions Entries replaced by a more frequent word.
+     * @param size      Number of cached words.
+     * @param capacity  Maximum number of cached words.
+     */
+    record Stats(long hits, long misses, long evictions, long size, int capacity) {
+
+        /**
+         * Gets the share of lookups answered from the cache.
+         * @return The hit rate between 0 and 1, or 0 before the first lookup.
+         */
+        double hitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d, misses=%d, hit rate=%.1f%%, evictions=%d, size=%d/%d",
+                    hits, misses, hitRate() * 100, evictions, size, capacity);
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Stores a new entry in its set: in a free slot if there is one, otherwise in place of
+     * the least frequent entry, provided the new word is more frequent than it.
+     */
+    private void admit(int first, Entry candidate) {
+        int victimIndex = -1;
+        Entry victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = first; i < first + WAYS; i++) {
+            Entry entry = slots.get(i);
+            if (entry == null) {
+                if (slots.compareAndSet(i, null, candidate)) {
+                    size.increment();
+                    return;
+                }
+                entry = slots.get(i);
+            }
+            if (entry.hash == candidate.hash && entry.matches(candidate.key, 0, candidate.key.length)) {
+                return; // Loaded concurrently by another thread
+            }
+            int frequency = frequency(entry.hash);
+            if (frequency < victimFrequency) {
+                victimIndex = i;
+                victim = entry;
+                victimFrequency = frequency;
+            }
+        }
+        if (frequency(candidate.hash) > victimFrequency && slots.compareAndSet(victimIndex, victim, candidate)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Hashes a word as if it were ASCII-lowercased.
+     */
+    private static int hash(char[] word, int offset, int length) {
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + toLowerCase(word[i]);
+        }
+        // Spread the bits, as the low ones select the set and the sketch counters
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void recordAccess(int hash) {
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            int index = counterIndex(hash, row);
+            int shift = counterShift(hash, row);
+            long word = sketch[index];
+            if (((word >>> shift) & 0xF) < 0xF) {
+                sketch[index] = word + (1L << shift);
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            additions = 0;
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] = (sketch[i] >>> 1) & RESET_MASK;
+            }
+        }
+    }
+
+    private int frequency(int hash) {
+        int frequency = 0xF;
+        for (int row = 0; row < 4; row++) {
+            frequency = Math.min(frequency, (int) ((sketch[counterIndex(hash, row)] >>> counterShift(hash, row)) & 0xF));
+        }
+        return frequency;
+    }
+
+    private int counterIndex(int hash, int row) {
+        int h = (hash + row * 0x61C88647) * 0x2545F491;
+        return (h ^ (h >>> 15)) & sketchMask;
+    }
+
+    private static int counterShift(int hash, int row) {
+        // Each row uses its own quarter of the long, then one of four counters in it
+        return (row << 4) + (((hash >>> (row << 3)) & 3) << 2);
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * An immutable cached word, stored ASCII-lowercased.
+     */
+    private static final class Entry {
+
+        final int hash;
+        final char[] key;
+        final int syllables;
+
+        Entry(int hash, char[] word, int offset, int length, int syllables) {
+            this.hash = hash;
+            this.key = new char[length];
+            for (int i = 0; i < length; i++) {
+                key[i] = toLowerCase(word[offset + i]);
+            }
+            this.syllables = syllables;
+        }
+
+        boolean matches(char[] word, int offset, int length) {
+            if (key.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != toLowerCase(word[offset + i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package readability;
+
+/**
+ * Allocation-free syllable counting based on vowel groups.
+ * <p>
+ * Works directly on a range of a {@link CharSequence} or {@code char[]} and uses a
+ * precomputed lookup table instead of regular expressions, so counting a word never
+ * lowercases, copies or matches strings. The rules are:
+ * <ol>
+ *     <li>a trailing non-letter (like a comma) is ignored;</li>
+ *     <li>each group of consecutive vowels (a, e, i, o, u, y) is one syllable;</li>
+ *     <li>a silent final 'e' is discounted unless it follows a vowel or an 'l',
+ *         or it is the only vowel group;</li>
+ *     <li>any non-empty word has at least one syllable.</li>
+ * </ol>
+ */
+final class SyllableCounter {
+
+    // Vowel lookup table for the ASCII range, both cases
+    private static final boolean[] VOWELS = new boolean[128];
+
+    static {
+        for (char c : "aeiouyAEIOUY".toCharArray()) {
+            VOWELS[c] = true;
+        }
+    }
+
+    private SyllableCounter() {
+    }
+
+    /**
+     * Counts the syllables in a word given as a range of a character sequence.
+     * @param text  The text containing the word.
+     * @param start Index of the first character of the word (inclusive).
+     * @param end   Index of the last character of the word (exclusive).
+     * @return The estimated number of syllables, 0 for an empty range.
+     */
+    static int count(CharSequence text, int start, int end) {
+        int vowelGroups = 0;
+        boolean lastWasVowel = false;
+        for (int i = start; i < end; i++) {
+            boolean vowel = isVowel(text.charAt(i));
+            if (vowel && !lastWasVowel) {
+                vowelGroups++;
+            }
+            lastWasVowel = vowel;
+        }
+        int length = end - start;
+        return adjust(vowelGroups, length,
+                length > 0 ? text.charAt(end - 1) : 0,
+                length > 1 ? text.charAt(end - 2) : 0,
+                length > 2 ? text.charAt(end - 3) : 0,
+                length > 3 ? text.charAt(end - 4) : 0);
+    }
+
+    /**
+     * Counts the syllables in a word given as a range of a character array.
+     * @param text  The characters containing the word.
+     * @param start Index of the first character of the word (inclusive).
+     * @param end   Index of the last character of the word (exclusive).
+     * @return The estimated number of syllables, 0 for an empty range.
+     */
+    static int count(char[] text, int start, int end) {
+        int vowelGroups = 0;
+        boolean lastWasVowel = false;
+        for (int i = start; i < end; i++) {
+            boolean vowel = isVowel(text[i]);
+            if (vowel && !lastWasVowel) {
+                vowelGroups++;
+            }
+            lastWasVowel = vowel;
+        }
+        int length = end - start;
+        return adjust(vowelGroups, length,
+                length > 0 ? text[end - 1] : 0,
+                length > 1 ? text[end - 2] : 0,
+                length > 2 ? text[end - 3] : 0,
+                length > 3 ? text[end - 4] : 0);
+    }
+
+    /**
+     * Tells whether a character is a vowel, in either case.
+     * @param c The character.
+     * @return True for a, e, i, o, u and y.
+     */
+    static boolean isVowel(char c) {
+        return c < 128 ? VOWELS[c] : isVowelSlow(c);
+    }
+
+    /**
+     * Applies the word-level rules to a vowel group count. Only the last four characters
+     * of the word are needed, which lets streaming callers count words of any length.
+     * @param vowelGroups Number of vowel groups in the whole word.
+     * @param length      Length of the word.
+     * @param last        Last character of the word (0 if none).
+     * @param second      Second to last character (0 if none).
+     * @param third       Third to last character (0 if none).
+     * @param fourth      Fourth to last character (0 if none).
+     * @return The estimated number of syllables.
+     */
+    static int adjust(int vowelGroups, int length, char last, char second, char third, char fourth) {
+        if (length == 0) {
+            return 0;
+        }
+        char end;
+        char beforeEnd;
+        if (isLowercaseLetter(toLowerCase(last))) {
+            end = last;
+            beforeEnd = second;
+        } else if (Character.isLowSurrogate(last) && Character.isHighSurrogate(second)) {
+            // The trailing non-letter is a whole supplementary code point
+            length -= 2;
+            end = third;
+            beforeEnd = fourth;
+        } else {
+            length -= 1;
+            end = second;
+            beforeEnd = third;
+        }
+
+        int syllables = vowelGroups;
+        if (length > 1 && syllables > 1 && toLowerCase(end) == 'e') {
+            char c = toLowerCase(beforeEnd);
+            if (c != 'l' && !isVowel(c)) {
+                syllables--;
+            }
+        }
+        if (syllables == 0 && length > 0) {
+            syllables = 1;
+        }
+        return syllables;
+    }
+
+    // --- Private Helper Methods ---
+
+    private static boolean isVowelSlow(char c) {
+        // A handful of non-ASCII letters lowercase to an ASCII vowel (e.g. 'İ')
+        char lower = Character.toLowerCase(c);
+        return lower < 128 && VOWELS[lower];
+    }
+
+    private static char toLowerCase(char c) {
+        if (c < 128) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static boolean isLowercaseLetter(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+}
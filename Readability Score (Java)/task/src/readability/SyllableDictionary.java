@@ -0,0 +1,338 @@
+package readability;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Exact syllable counts from a precompiled pronunciation dictionary, memory-mapped from disk.
+ * <p>
+ * The file is an open-addressing hash table built by {@link #compile(Path, Path)}: a header,
+ * a power-of-two array of slots holding a key hash and a key offset, then the keys themselves
+ * as ASCII bytes, each followed by its syllable count. Loading only maps the file and checks
+ * the header, so it costs the same whatever the dictionary size; pages are read by the OS
+ * on first use and shared by every process that maps the same file. A lookup hashes the
+ * word, then reads a slot or two and one key straight from the mapped buffer: nothing is
+ * allocated and the Java heap holds no part of the table.
+ * <p>
+ * Words are matched without the ASCII punctuation around them and in ASCII lowercase, so
+ * "Hello," is found as "hello". Words with other characters, or missing from the table,
+ * are reported as {@link #UNKNOWN} and the scanner falls back to the vowel-group heuristic.
+ * <p>
+ * File layout, big-endian:
+ * <pre>
+ *   int magic ("RDSY"), int version, int slotCount, int entryCount
+ *   slotCount x (int hash, int keyOffset)       hash 0 marks an empty slot
+ *   keys: byte length, length x byte, byte syllables
+ * </pre>
+ */
+final class SyllableDictionary implements SyllableSource {
+
+    private static final int MAGIC = 0x52445359; // "RDSY"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 8;
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ByteBuffer table;
+    private final int slotMask;
+    private final int keysStart;
+    private final int entryCount;
+
+    private SyllableDictionary(ByteBuffer table, int slotCount, int entryCount) {
+        this.table = table;
+        this.slotMask = slotCount - 1;
+        this.keysStart = HEADER_SIZE + slotCount * SLOT_SIZE;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Maps a dictionary file compiled by {@link #compile(Path, Path)}.
+     * @param path Path to the compiled dictionary.
+     * @return The dictionary.
+     * @throws IOException If the file cannot be mapped or is not a compiled dictionary.
+     */
+    static SyllableDictionary load(Path path) throws IOException {
+        ByteBuffer table;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Not a compiled syllable dictionary: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int slotCount = table.getInt(8);
+        int entryCount = table.getInt(12);
+        if (table.getInt(0) != MAGIC || table.getInt(4) != VERSION
+                || slotCount <= 0 || Integer.bitCount(slotCount) != 1
+                || (long) HEADER_SIZE + (long) slotCount * SLOT_SIZE > table.capacity()) {
+            throw new IOException("Not a compiled syllable dictionary: " + path);
+        }
+        return new SyllableDictionary(table, slotCount, entryCount);
+    }
+
+    /**
+     * The outcome of {@link #compile(Path, Path)}.
+     * @param words   Words written to the compiled dictionary.
+     * @param skipped Entries left out because a scanned word could never be looked up as
+     *                their key, or because their pronunciation has no syllable.
+     */
+    record Summary(int words, int skipped) {
+    }
+
+    /**
+     * Compiles a text dictionary into the binary format read by {@link #load(Path)}.
+     * <p>
+     * Each line holds a word followed either by its syllable count ({@code readability 5}) or by
+     * its pronunciation in the CMU Pronouncing Dictionary format, where syllables are the
+     * phonemes carrying a stress digit ({@code READABILITY  R IY2 D AH0 B IH1 L IH0 T IY0}).
+     * Lines starting with ";;;" or "#" are comments, as is anything after a "#" field.
+     * <p>
+     * Words are normalised the way {@link #count(char[], int, int)} normalises a scanned word:
+     * a variant suffix such as {@code WORD(2)} is dropped, then the punctuation around the
+     * word, so {@code A.} and {@code 'BOUT} become "a" and "bout". The first entry of a word
+     * wins, and an entry that had punctuation stripped only fills in for a word with no entry
+     * of its own. Entries that still cannot be looked up, such as {@code A.B.C.} or words
+     * with accented letters, are skipped and counted rather than rejected; so are bytes that
+     * are not valid UTF-8, as in the Latin-1 releases of the CMU dictionary.
+     * @param source Path to the text dictionary, in UTF-8.
+     * @param output Path of the compiled dictionary to write.
+     * @return The number of words written and of entries skipped.
+     * @throws IOException If a file cannot be read or written.
+     * @throws IllegalArgumentException If a line has no pronunciation or an invalid syllable count.
+     */
+    static Summary compile(Path source, Path output) throws IOException {
+        Map<String, Integer> entries = new LinkedHashMap<>();
+        Map<String, Integer> stripped = new LinkedHashMap<>();
+        int skipped = 0;
+        // Unlike Files.newBufferedReader, replaces malformed input instead of failing on it
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(source), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith(";;;") || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 2 || fields[1].startsWith("#")) {
+                    throw new IllegalArgumentException("Malformed dictionary line " + lineNumber + ": " + line);
+                }
+                String word = withoutVariant(fields[0].toLowerCase(Locale.ROOT));
+                String key = withoutPunctuation(word);
+                int syllables = syllablesOf(fields, lineNumber);
+                if (!isKey(key) || syllables == 0) {
+                    skipped++;
+                    continue;
+                }
+                (key.equals(word) ? entries : stripped).putIfAbsent(key, syllables);
+            }
+        }
+        stripped.forEach(entries::putIfAbsent);
+
+        int slotCount = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+        int[] hashes = new int[slotCount];
+        int[] offsets = new int[slotCount];
+        ByteBuffer keys = ByteBuffer.allocate(entries.size() * 8 + 64);
+        for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+            byte[] key = entry.getKey().getBytes(StandardCharsets.US_ASCII);
+            if (keys.remaining() < key.length + 2) {
+                keys = ByteBuffer.allocate(Math.max(keys.capacity() * 2, keys.capacity() + key.length + 2))
+                        .put(keys.flip());
+            }
+            int hash = hash(key);
+            int slot = hash & (slotCount - 1);
+            while (hashes[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            hashes[slot] = hash;
+            offsets[slot] = keys.position();
+            keys.put((byte) key.length).put(key).put((byte) (int) entry.getValue());
+        }
+
+        try (OutputStream file = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(slotCount);
+            out.writeInt(entries.size());
+            for (int i = 0; i < slotCount; i++) {
+                out.writeInt(hashes[i]);
+                out.writeInt(offsets[i]);
+            }
+            out.write(keys.array(), 0, keys.position());
+        }
+        return new Summary(entries.size(), skipped);
+    }
+
+    /**
+     * Looks a word up, ignoring surrounding punctuation and ASCII case.
+     * @param word   The buffer holding the word.
+     * @param offset Index of the first character of the word.
+     * @param length Length of the word.
+     * @return The number of syllables, or {@link #UNKNOWN} if the word is not in the dictionary.
+     */
+    @Override
+    public int count(char[] word, int offset, int length) {
+        int start = offset;
+        int end = offset + length;
+        while (start < end && isPunctuation(word[start])) {
+            start++;
+        }
+        while (end > start && isPunctuation(word[end - 1])) {
+            end--;
+        }
+        if (start == end || end - start > MAX_KEY_LENGTH) {
+            return UNKNOWN;
+        }
+
+        // FNV-1a, as in hash(byte[])
+        int hash = 0x811C9DC5;
+        for (int i = start; i < end; i++) {
+            char c = toLowerCase(word[i]);
+            if (!isKeyCharacter(c)) {
+                return UNKNOWN;
+            }
+            hash = (hash ^ c) * 0x01000193;
+        }
+        hash = hash == 0 ? 1 : hash;
+
+        // The table is at most half full, so an empty slot always ends the probe
+        for (int slot = hash & slotMask, probes = 0; probes <= slotMask; slot = (slot + 1) & slotMask, probes++) {
+            int position = HEADER_SIZE + slot * SLOT_SIZE;
+            int slotHash = table.getInt(position);
+            if (slotHash == 0) {
+                return UNKNOWN;
+            }
+            if (slotHash == hash) {
+                int key = keysStart + table.getInt(position + 4);
+                if (matches(key, word, start, end)) {
+                    return table.get(key + 1 + (end - start));
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Gets the number of words in the dictionary.
+     * @return The entry count.
+     */
+    int size() {
+        return entryCount;
+    }
+
+    // --- Private Helper Methods ---
+
+    private boolean matches(int key, char[] word, int start, int end) {
+        if ((table.get(key) & 0xFF) != end - start) {
+            return false;
+        }
+        for (int i = start, position = key + 1; i < end; i++, position++) {
+            if (table.get(position) != toLowerCase(word[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the syllable count of a dictionary line.
+     * @return The count, or 0 for a pronunciation without a stressed phoneme, such as "HMM  HH M".
+     */
+    private static int syllablesOf(String[] fields, int lineNumber) {
+        if (fields.length == 2 && fields[1].chars().allMatch(Character::isDigit)) {
+            int syllables = fields[1].length() <= 3 ? Integer.parseInt(fields[1]) : 0;
+            if (syllables < 1 || syllables > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Invalid syllable count on dictionary line " + lineNumber);
+            }
+            return syllables;
+        }
+        int syllables = 0;
+        for (int i = 1; i < fields.length && !fields[i].startsWith("#"); i++) {
+            if (Character.isDigit(fields[i].charAt(fields[i].length() - 1))) {
+                syllables++;
+            }
+        }
+        return Math.min(syllables, Byte.MAX_VALUE);
+    }
+
+    private static String withoutVariant(String word) {
+        int variant = word.lastIndexOf('(');
+        return variant > 0 && word.endsWith(")") ? word.substring(0, variant) : word;
+    }
+
+    /**
+     * Drops the punctuation around a dictionary word, as {@link #count(char[], int, int)} does.
+     */
+    private static String withoutPunctuation(String word) {
+        int start = 0;
+        int end = word.length();
+        while (start < end && isPunctuation(word.charAt(start))) {
+            start++;
+        }
+        while (end > start && isPunctuation(word.charAt(end - 1))) {
+            end--;
+        }
+        return word.substring(start, end);
+    }
+
+    private static int hash(byte[] key) {
+        int hash = 0x811C9DC5;
+        for (byte b : key) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Tells whether a dictionary word can be looked up, i.e. whether it is made of key
+     * characters and starts and ends with a letter.
+     */
+    private static boolean isKey(String word) {
+        if (word.isEmpty() || word.length() > MAX_KEY_LENGTH
+                || !isLetter(word.charAt(0)) || !isLetter(word.charAt(word.length() - 1))) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (!isKeyCharacter(word.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isKeyCharacter(char c) {
+        return c >= 'a' && c <= 'z' || c == '\'' || c == '-';
+    }
+
+    /**
+     * Tells whether a character is stripped around words: ASCII only, so that a word with
+     * an accented letter, or a replaced malformed byte, at either end is not cut short.
+     */
+    private static boolean isPunctuation(char c) {
+        return c < 128 && !isLetter(c);
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+}
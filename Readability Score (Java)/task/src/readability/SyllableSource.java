@@ -0,0 +1,27 @@
+package readability;
+
+/**
+ * Gives the syllable count of a single word, for scanners that should not rely on the
+ * streaming vowel-group heuristic alone.
+ * <p>
+ * Words are passed as a range of a reused buffer, exactly as they appear in the text
+ * (trailing punctuation included), so implementations must not keep a reference to it.
+ */
+@FunctionalInterface
+interface SyllableSource {
+
+    /** Result of {@link #count} for a word the source does not know. */
+    int UNKNOWN = -1;
+
+    /** The vowel-group heuristic of {@link SyllableCounter}. */
+    SyllableSource HEURISTIC = (word, offset, length) -> SyllableCounter.count(word, offset, offset + length);
+
+    /**
+     * Counts the syllables of a word.
+     * @param word   The buffer holding the word.
+     * @param offset Index of the first character of the word.
+     * @param length Length of the word, at least 1.
+     * @return The number of syllables, or {@link #UNKNOWN}.
+     */
+    int count(char[] word, int offset, int length);
+}
@@ -0,0 +1,318 @@
+package readability;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the regular files of a TAR archive one after the other, like {@link java.util.zip.ZipInputStream}
+ * does for ZIP: {@link #getNextEntry()} moves to the next file, whose content is then read from
+ * this stream up to its end.
+ * <p>
+ * The archive is read strictly sequentially through 512-byte blocks, so it can come straight
+ * from a pipe or a decompressor. POSIX ustar and GNU archives are supported, including the
+ * ustar name prefix, GNU long names and the {@code path} and {@code size} records of PAX
+ * headers. Directories, links and other special entries are skipped.
+ */
+final class TarInputStream extends FilterInputStream {
+
+    /** Size of a TAR block; headers take one block and contents are padded to whole blocks. */
+    static final int BLOCK_SIZE = 512;
+
+    // Header field offsets and lengths
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 100;
+    private static final int SIZE_OFFSET = 124;
+    private static final int SIZE_LENGTH = 12;
+    private static final int CHECKSUM_OFFSET = 148;
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final int TYPE_OFFSET = 156;
+    private static final int MAGIC_OFFSET = 257;
+    private static final int PREFIX_OFFSET = 345;
+    private static final int PREFIX_LENGTH = 155;
+
+    // Longest GNU long name or PAX header read into memory
+    private static final int MAX_METADATA_SIZE = 1024 * 1024;
+
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private long remaining; // Content bytes left in the current entry
+    private int padding; // Bytes after the content up to the next block boundary
+    private boolean finished;
+
+    /**
+     * A regular file of the archive.
+     * @param name The path of the file in the archive.
+     * @param size The size of its content in bytes.
+     */
+    record Entry(String name, long size) {
+    }
+
+    /**
+     * Creates a reader positioned before the first entry.
+     * @param in The archive, read sequentially and closed with this stream.
+     */
+    TarInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Tells whether a block looks like a ustar or GNU TAR header.
+     * @param block The first bytes of a stream, at least up to the magic field.
+     * @param length Number of valid bytes in the block.
+     * @return True if the block carries the "ustar" magic.
+     */
+    static boolean isTarHeader(byte[] block, int length) {
+        if (length < MAGIC_OFFSET + 5) {
+            return false;
+        }
+        return block[MAGIC_OFFSET] == 'u' && block[MAGIC_OFFSET + 1] == 's' && block[MAGIC_OFFSET + 2] == 't'
+                && block[MAGIC_OFFSET + 3] == 'a' && block[MAGIC_OFFSET + 4] == 'r';
+    }
+
+    /**
+     * Skips whatever is left of the current entry and moves to the next regular file.
+     * @return The next file, or null at the end of the archive.
+     * @throws IOException If the archive cannot be read or is corrupt.
+     */
+    Entry getNextEntry() throws IOException {
+        skipCurrent();
+        String longName = null;
+        long paxSize = -1;
+        while (!finished) {
+            if (!readBlock()) {
+                finished = true; // A missing end-of-archive marker is tolerated
+                return null;
+            }
+            if (isZeroBlock()) {
+                finished = true;
+                return null;
+            }
+            verifyChecksum();
+            long size = parseNumber(SIZE_OFFSET, SIZE_LENGTH);
+            char type = (char) header[TYPE_OFFSET];
+            String name = headerName();
+            startContent(size);
+
+            switch (type) {
+                case 'L' -> longName = readMetadata(size).trim();
+                case 'x' -> {
+                    String pax = readMetadata(size);
+                    String path = paxValue(pax, "path");
+                    String paxSizeValue = paxValue(pax, "size");
+                    if (path != null) {
+                        longName = path;
+                    }
+                    if (paxSizeValue != null) {
+                        paxSize = Long.parseLong(paxSizeValue);
+                    }
+                }
+                case '0', '\0', '7' -> {
+                    if (paxSize >= 0) {
+                        startContent(paxSize);
+                        size = paxSize;
+                    }
+                    return new Entry(longName != null ? longName : name, size);
+                }
+                default -> {
+                    // Directories, links, devices, global PAX headers: skip their content
+                    skipCurrent();
+                    longName = null;
+                    paxSize = -1;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (remaining <= 0) {
+            return -1;
+        }
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of TAR archive");
+        }
+        remaining--;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+        if (read < 0) {
+            throw new EOFException("Unexpected end of TAR archive");
+        }
+        remaining -= read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(Math.min(n, remaining));
+        remaining -= skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(in.available(), remaining);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    // --- Private Helper Methods ---
+
+    private void startContent(long size) {
+        remaining = size;
+        padding = (int) ((BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE);
+    }
+
+    private void skipCurrent() throws IOException {
+        long toSkip = remaining + padding;
+        remaining = 0;
+        padding = 0;
+        while (toSkip > 0) {
+            long skipped = in.skip(toSkip);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Unexpected end of TAR archive");
+                }
+                skipped = 1;
+            }
+            toSkip -= skipped;
+        }
+    }
+
+    private boolean readBlock() throws IOException {
+        int read = in.readNBytes(header, 0, BLOCK_SIZE);
+        if (read == 0) {
+            return false;
+        }
+        if (read < BLOCK_SIZE) {
+            throw new EOFException("Truncated TAR header");
+        }
+        return true;
+    }
+
+    private boolean isZeroBlock() {
+        for (byte b : header) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks the header checksum: the sum of all header bytes, the checksum field counting as spaces.
+     * Some old archivers summed signed bytes, which is accepted too.
+     */
+    private void verifyChecksum() throws IOException {
+        long expected = parseNumber(CHECKSUM_OFFSET, CHECKSUM_LENGTH);
+        long unsignedSum = 0;
+        long signedSum = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            boolean inChecksum = i >= CHECKSUM_OFFSET && i < CHECKSUM_OFFSET + CHECKSUM_LENGTH;
+            unsignedSum += inChecksum ? ' ' : header[i] & 0xFF;
+            signedSum += inChecksum ? ' ' : header[i];
+        }
+        if (unsignedSum != expected && signedSum != expected) {
+            throw new IOException("Corrupt TAR header (bad checksum)");
+        }
+    }
+
+    /**
+     * Parses a numeric field: NUL- or space-terminated octal, or GNU base-256 for large values.
+     */
+    private long parseNumber(int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = (value << 8) | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        long value = 0;
+        int i = offset;
+        int end = offset + length;
+        while (i < end && header[i] == ' ') {
+            i++;
+        }
+        for (; i < end && header[i] != 0 && header[i] != ' '; i++) {
+            int digit = header[i] - '0';
+            if (digit < 0 || digit > 7) {
+                throw new IOException("Corrupt TAR header (bad number)");
+            }
+            value = (value << 3) | digit;
+        }
+        return value;
+    }
+
+    private String headerName() {
+        String name = field(NAME_OFFSET, NAME_LENGTH);
+        // Only POSIX ustar ("ustar\0") has a prefix; GNU ("ustar ") keeps other fields there
+        boolean posix = isTarHeader(header, BLOCK_SIZE) && header[MAGIC_OFFSET + 5] == 0;
+        String prefix = posix ? field(PREFIX_OFFSET, PREFIX_LENGTH) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private String field(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the whole content of a metadata entry, such as a long name or PAX header.
+     */
+    private String readMetadata(long size) throws IOException {
+        if (size > MAX_METADATA_SIZE) {
+            throw new IOException("TAR metadata entry too large: " + size + " bytes");
+        }
+        byte[] bytes = readNBytes((int) size);
+        if (bytes.length < size) {
+            throw new EOFException("Unexpected end of TAR archive");
+        }
+        skipCurrent();
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] == 0) {
+            end--;
+        }
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds a value in PAX records of the form "length key=value\n".
+     */
+    private static String paxValue(String records, String key) {
+        String value = null;
+        int position = 0;
+        while (position < records.length()) {
+            int space = records.indexOf(' ', position);
+            int newline = records.indexOf('\n', position);
+            if (space < 0 || newline < 0 || space > newline) {
+                break;
+            }
+            int equals = records.indexOf('=', space);
+            if (equals > 0 && equals < newline && records.substring(space + 1, equals).equals(key)) {
+                value = records.substring(equals + 1, newline);
+            }
+            position = newline + 1;
+        }
+        return value;
+    }
+}
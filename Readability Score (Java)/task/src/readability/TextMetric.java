@@ -0,0 +1,41 @@
+package readability;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The raw counts a readability index can depend on.
+ * <p>
+ * Sentences, words and characters fall out of tokenizing for free; syllables and
+ * polysyllables need a per-character vowel analysis, which is skipped entirely when
+ * none of the requested indices depends on them.
+ */
+public enum TextMetric {
+    SENTENCES,
+    WORDS,
+    CHARACTERS,
+    SYLLABLES,
+    POLYSYLLABLES;
+
+    /**
+     * Gets the union of the counts needed by a set of indices.
+     * @param indices The indices to compute.
+     * @return The counts they need.
+     */
+    public static Set<TextMetric> requiredBy(Set<ReadabilityScoreMapping.IndexType> indices) {
+        Set<TextMetric> metrics = EnumSet.noneOf(TextMetric.class);
+        for (ReadabilityScoreMapping.IndexType type : indices) {
+            metrics.addAll(type.getRequiredMetrics());
+        }
+        return metrics;
+    }
+
+    /**
+     * Tells whether the syllable analysis has to run to produce a set of counts.
+     * @param metrics The counts needed.
+     * @return True if syllables or polysyllables are among them.
+     */
+    static boolean needsSyllables(Set<TextMetric> metrics) {
+        return metrics.contains(SYLLABLES) || metrics.contains(POLYSYLLABLES);
+    }
+}
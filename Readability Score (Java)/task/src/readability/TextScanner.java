@@ -0,0 +1,673 @@
+package readability;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Single-pass tokenizer that produces every raw count needed by the readability indices.
+ * <p>
+ * Characters are fed one at a time (or in ranges) and classified as whitespace, control
+ * character, sentence terminator ('.', '!', '?') or word character. Sentence, word, character,
+ * syllable and polysyllable counts are all updated on the fly, so no intermediate strings,
+ * arrays or lists are ever created. The results are identical to the former regex pipeline,
+ * which trimmed the text and each sentence with {@link String#trim()} and split words on {@code \s}:
+ * <ul>
+ *     <li>whitespace is the regex class {@code \s}: space, tab, line feed, vertical tab, form
+ *     feed and carriage return;</li>
+ *     <li>a sentence is a run of text between terminator runs that contains at least one word
+ *     character, i.e. one that is neither whitespace, a control character nor a terminator;</li>
+ *     <li>a word is a run of characters that are neither whitespace nor terminators, between
+ *     the first and the last word character of its sentence;</li>
+ *     <li>characters are all non-whitespace characters, terminators included, between the
+ *     first and the last visible character of the text;</li>
+ *     <li>text made only of terminators counts as a single sentence of whitespace-separated words.</li>
+ * </ul>
+ * Input may be supplied in any number of pieces; call {@link #finish()} once at the end.
+ * <p>
+ * Whether the other control characters below U+0020 count thus depends on the text after
+ * them: "Hello there.\u0001 World!" has three words, "Hello \u0001 there." has three too.
+ * Their counts are kept pending until the next visible character, which commits them as
+ * characters and tokens, and also as words and syllables if it is a word character; a
+ * terminator or the end of the text drops the rest. Syllables are counted on the word as the
+ * regex pipeline lowercased it, where 'İ' (U+0130) became "i" followed by a combining dot
+ * that ends its vowel group.
+ * <p>
+ * When no requested index needs syllables, the scanner can be created without syllable
+ * counting: the per-character vowel analysis is then skipped and both syllable counts stay 0.
+ * It can also be given a {@link SyllableSource}, such as a shared {@link SyllableCache}: words
+ * are then copied into a small reused buffer and counted by the source, and the streaming
+ * heuristic is only used for words the source does not know or that do not fit the buffer.
+ * <p>
+ * A {@link SentenceListener} can be told whenever a sentence is counted, e.g. to keep
+ * per-sentence counts; it reads the running counts from the scanner's raw getters.
+ * <p>
+ * When the SIMD classifier is turned on and the Vector API is available (see
+ * {@link CharClassifier#vectorized()}), character arrays and ASCII bytes are classified {@value CharClassifier#BLOCK_SIZE} at a time into
+ * bitmasks, and the counts of each block are derived from the masks: characters, words and
+ * tokens with popcounts, sentences from the terminators, and syllables word by word from
+ * the vowel-group starts. Shorter tails, control characters with their pending counts and
+ * scanners with a sentence listener, which needs the counts at every sentence end, take the
+ * per-character path.
+ */
+final class TextScanner {
+
+    // Character classes for the ASCII range; everything else is a word character
+    private static final byte WORD = 0;
+    private static final byte WHITESPACE = 1;
+    private static final byte TERMINATOR = 2;
+    private static final byte CONTROL = 3;
+
+    private static final byte[] CHAR_CLASSES = new byte[128];
+
+    static {
+        // String.trim() strips every character up to ' ', but words were split on \s only
+        for (char c = 0; c < ' '; c++) {
+            CHAR_CLASSES[c] = CONTROL;
+        }
+        for (char c : new char[] {' ', '\t', '\n', '\u000B', '\f', '\r'}) {
+            CHAR_CLASSES[c] = WHITESPACE;
+        }
+        CHAR_CLASSES['.'] = TERMINATOR;
+        CHAR_CLASSES['!'] = TERMINATOR;
+        CHAR_CLASSES['?'] = TERMINATOR;
+    }
+
+    // Words longer than this are always counted by the streaming heuristic
+    private static final int WORD_BUFFER_SIZE = 64;
+
+    // String.toLowerCase() turns 'İ' into "i" and this non-vowel
+    private static final char DOTTED_CAPITAL_I = '\u0130';
+    private static final char COMBINING_DOT_ABOVE = '\u0307';
+
+    // Shared by all scanners, null when vectors are not supported
+    private static final CharClassifier CLASSIFIER = CharClassifier.vectorized();
+    private static final int BLOCK_SIZE = CharClassifier.BLOCK_SIZE;
+
+    private final boolean countSyllables;
+    private final SyllableSource syllableSource; // Null to use the streaming heuristic only
+    private final char[] wordBuffer;
+    private final long[] masks; // Null without a classifier
+    private final byte[] asciiBuffer; // ASCII bytes of a block, copied in bulk
+    private final char[] blockBuffer; // The same bytes, widened for the syllable analysis
+
+    // Raw counts
+    private long sentenceCount;
+    private long wordCount;
+    private long characterCount;
+    private long syllableCount;
+    private long polysyllableCount;
+    // Whitespace-separated tokens, only used when the text has no words at all
+    private long tokenCount;
+    private long longTokenCount;
+
+    // Sentence/token state
+    private boolean sentenceHasWord;
+    private int tokenLength;
+    private boolean visibleSeen;
+
+    // Counts of the control characters since the last visible character, committed by the next one
+    private boolean controlPending;
+    private long pendingCharacters;
+    private long pendingTokens;
+    private long pendingLongTokens;
+    private long pendingWords;
+    private long pendingSyllables;
+    private long pendingPolysyllables;
+
+    // Current word state
+    private boolean inWord;
+    private boolean inControlRun; // Control characters only, inside a sentence: a word if a word character follows
+    private int controlTail; // Control characters after the last word character of the current word
+    private int tailFreeSyllables; // Syllables of the current word without that tail
+    private int wordLength;
+    private int vowelGroups;
+    private boolean lastWasVowel;
+    // Last four characters of the current word, tail0 being the last one
+    private char tail0;
+    private char tail1;
+    private char tail2;
+    private char tail3;
+
+    private boolean finished;
+    private SentenceListener sentenceListener;
+
+    /**
+     * Receives the end of every sentence, right after it is counted.
+     */
+    @FunctionalInterface
+    interface SentenceListener {
+
+        /**
+         * Called when a sentence ends: at its first terminator, or in {@link #finish()}.
+         * @param scanner The scanner, whose running counts include the sentence.
+         */
+        void sentenceEnded(TextScanner scanner);
+    }
+
+    /**
+     * Creates a scanner that gathers every count.
+     */
+    TextScanner() {
+        this(true);
+    }
+
+    /**
+     * Creates a scanner that may skip the syllable analysis.
+     * @param countSyllables Whether to count syllables and polysyllables.
+     */
+    TextScanner(boolean countSyllables) {
+        this(countSyllables, null);
+    }
+
+    /**
+     * Creates a scanner that counts syllables with the given source where it can.
+     * @param countSyllables Whether to count syllables and polysyllables.
+     * @param syllableSource The source of per-word counts, or null for the streaming heuristic.
+     */
+    TextScanner(boolean countSyllables, SyllableSource syllableSource) {
+        this.countSyllables = countSyllables;
+        this.syllableSource = countSyllables ? syllableSource : null;
+        this.wordBuffer = this.syllableSource != null ? new char[WORD_BUFFER_SIZE] : null;
+        this.masks = CLASSIFIER != null ? new long[3] : null;
+        this.asciiBuffer = CLASSIFIER != null && countSyllables ? new byte[BLOCK_SIZE] : null;
+        this.blockBuffer = CLASSIFIER != null && countSyllables ? new char[BLOCK_SIZE] : null;
+    }
+
+    /**
+     * Feeds a whole character sequence to the scanner.
+     * @param text The text to scan.
+     * @return This scanner.
+     */
+    TextScanner accept(CharSequence text) {
+        return accept(text, 0, text.length());
+    }
+
+    /**
+     * Feeds a range of a character sequence to the scanner.
+     * @param text  The text to scan.
+     * @param start Index of the first character (inclusive).
+     * @param end   Index of the last character (exclusive).
+     * @return This scanner.
+     */
+    TextScanner accept(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            accept(text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Feeds a range of a character array to the scanner.
+     * @param buffer The characters to scan.
+     * @param offset Index of the first character.
+     * @param length Number of characters to scan.
+     * @return This scanner.
+     */
+    TextScanner accept(char[] buffer, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean blocks = masks != null && sentenceListener == null;
+        while (i < end) {
+            if (blocks && !controlPending && end - i >= BLOCK_SIZE && CLASSIFIER.classify(buffer, i, masks)) {
+                acceptBlock(buffer, i);
+                i += BLOCK_SIZE;
+                continue;
+            }
+            // A short tail, pending control characters, or a block the masks cannot describe
+            for (int stop = blocks ? Math.min(end, i + BLOCK_SIZE) : end; i < stop; i++) {
+                accept(buffer[i]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Feeds the ASCII bytes of a byte range to the scanner, up to the first non-ASCII byte.
+     * Only valid for charsets in which every byte below 0x80 is the ASCII character itself.
+     * @param bytes The encoded text; its position and limit are ignored.
+     * @param start Index of the first byte (inclusive).
+     * @param end   Index of the last byte (exclusive).
+     * @return Index of the first non-ASCII byte, or {@code end} if there is none.
+     */
+    int acceptAscii(ByteBuffer bytes, int start, int end) {
+        boolean blocks = masks != null && sentenceListener == null;
+        int i = start;
+        while (i < end) {
+            if (blocks && !controlPending && end - i >= BLOCK_SIZE && CLASSIFIER.classifyAscii(bytes, i, masks)) {
+                if (blockBuffer != null) {
+                    bytes.get(i, asciiBuffer, 0, BLOCK_SIZE);
+                    for (int k = 0; k < BLOCK_SIZE; k++) {
+                        blockBuffer[k] = (char) asciiBuffer[k];
+                    }
+                }
+                acceptBlock(blockBuffer, 0);
+                i += BLOCK_SIZE;
+                continue;
+            }
+            // A short tail, pending control characters, or a block the masks cannot describe
+            for (int stop = blocks ? Math.min(end, i + BLOCK_SIZE) : end; i < stop; i++) {
+                byte b = bytes.get(i);
+                if (b < 0) {
+                    return i;
+                }
+                accept((char) b);
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Advances the state machine by one character.
+     * @param c The next character of the text.
+     */
+    void accept(char c) {
+        byte charClass = c < 128 ? CHAR_CLASSES[c] : WORD;
+
+        if (charClass == WHITESPACE) {
+            endRun();
+            tokenLength = 0;
+            return;
+        }
+        if (charClass == CONTROL) {
+            acceptControl(c);
+            return;
+        }
+
+        if (controlPending) {
+            commitControls(charClass == WORD);
+        }
+        visibleSeen = true;
+        characterCount++;
+        if (tokenLength < 2) {
+            if (++tokenLength == 1) {
+                tokenCount++;
+            } else {
+                longTokenCount++;
+            }
+        }
+
+        if (charClass == TERMINATOR) {
+            endWord();
+            if (sentenceHasWord) {
+                sentenceCount++;
+                sentenceHasWord = false;
+                if (sentenceListener != null) {
+                    sentenceListener.sentenceEnded(this);
+                }
+            }
+            return;
+        }
+
+        controlTail = 0; // Any control characters since the last word character are inside the word
+        if (inControlRun) {
+            inControlRun = false; // The control characters start the word
+            inWord = true;
+            wordCount++;
+        } else if (!inWord) {
+            startWord();
+        }
+        if (!countSyllables) {
+            return;
+        }
+        acceptWordCharacter(c);
+        if (c == DOTTED_CAPITAL_I) {
+            acceptWordCharacter(COMBINING_DOT_ABOVE);
+        }
+    }
+
+    /**
+     * Closes any word or sentence still open at the end of the input.
+     * @return This scanner.
+     */
+    TextScanner finish() {
+        if (!finished) {
+            endWord();
+            if (sentenceHasWord) {
+                sentenceCount++;
+                sentenceHasWord = false;
+                if (sentenceListener != null) {
+                    sentenceListener.sentenceEnded(this);
+                }
+            }
+            finished = true;
+        }
+        return this;
+    }
+
+    /**
+     * Tells whether a character separates words, using the regex class {@code \s}.
+     * @param c The character.
+     * @return True for the space, tab, line feed, vertical tab, form feed and carriage return.
+     */
+    static boolean isWhitespace(char c) {
+        return c < 128 && CHAR_CLASSES[c] == WHITESPACE;
+    }
+
+    /**
+     * Tells whether a character is one of the other control characters, which only count
+     * between visible characters.
+     * @param c The character.
+     * @return True for the characters below U+0020 that are not whitespace.
+     */
+    static boolean isControl(char c) {
+        return c < 128 && CHAR_CLASSES[c] == CONTROL;
+    }
+
+    /**
+     * Tells whether a character makes its run of text a word and its sentence count.
+     * @param c The character.
+     * @return True unless the character is whitespace, a control character or a terminator.
+     */
+    static boolean isWordCharacter(char c) {
+        return c >= 128 || CHAR_CLASSES[c] == WORD;
+    }
+
+    /**
+     * Tells whether a character ends sentences.
+     * @param c The character.
+     * @return True for '.', '!' and '?'.
+     */
+    static boolean isTerminator(char c) {
+        return c < 128 && CHAR_CLASSES[c] == TERMINATOR;
+    }
+
+    /**
+     * Sets the listener told about every sentence end.
+     * @param listener The listener, or null for none.
+     * @return This scanner.
+     */
+    TextScanner setSentenceListener(SentenceListener listener) {
+        this.sentenceListener = listener;
+        return this;
+    }
+
+    // --- Raw Running Counts, mainly for listeners ---
+
+    long getSentenceCount() {
+        return sentenceCount;
+    }
+
+    long getWordCount() {
+        return wordCount;
+    }
+
+    long getCharacterCount() {
+        return characterCount;
+    }
+
+    long getSyllableCount() {
+        return syllableCount;
+    }
+
+    long getPolysyllableCount() {
+        return polysyllableCount;
+    }
+
+    /**
+     * Returns the counts gathered so far; call {@link #finish()} first for the final ones.
+     * @return The text statistics.
+     */
+    TextStatistics getStatistics() {
+        return new TextStatistics(sentenceCount, wordCount, characterCount, syllableCount,
+                polysyllableCount, tokenCount, countSyllables ? longTokenCount : 0);
+    }
+
+    // --- Private Helper Methods ---
+
+    private void startWord() {
+        inWord = true;
+        wordCount++;
+        sentenceHasWord = true;
+        resetWord();
+    }
+
+    private void resetWord() {
+        wordLength = 0;
+        vowelGroups = 0;
+        lastWasVowel = false;
+        tail0 = tail1 = tail2 = tail3 = 0;
+    }
+
+    /**
+     * Adds a character of the lowercased word to the syllable analysis.
+     */
+    private void acceptWordCharacter(char c) {
+        boolean vowel = SyllableCounter.isVowel(c);
+        if (vowel && !lastWasVowel) {
+            vowelGroups++;
+        }
+        lastWasVowel = vowel;
+        if (wordBuffer != null && wordLength < WORD_BUFFER_SIZE) {
+            wordBuffer[wordLength] = c;
+        }
+        wordLength++;
+        tail3 = tail2;
+        tail2 = tail1;
+        tail1 = tail0;
+        tail0 = c;
+    }
+
+    /**
+     * Counts a control character, pending until the next visible character.
+     */
+    private void acceptControl(char c) {
+        if (!visibleSeen) {
+            return; // Trimmed from the start of the text
+        }
+        controlPending = true;
+        pendingCharacters++;
+        if (tokenLength < 2) {
+            if (++tokenLength == 1) {
+                pendingTokens++;
+            } else {
+                pendingLongTokens++;
+            }
+        }
+        if (inWord) {
+            if (controlTail++ == 0 && countSyllables) {
+                tailFreeSyllables = wordSyllables();
+            }
+        } else if (!inControlRun) {
+            if (!sentenceHasWord) {
+                return; // Trimmed from the start of the sentence
+            }
+            inControlRun = true;
+            resetWord();
+        }
+        if (countSyllables) {
+            acceptWordCharacter(c);
+        }
+    }
+
+    /**
+     * Commits the counts of the control characters before a visible character.
+     * @param wordFollows Whether it is a word character, which keeps their words and syllables.
+     */
+    private void commitControls(boolean wordFollows) {
+        characterCount += pendingCharacters;
+        tokenCount += pendingTokens;
+        longTokenCount += pendingLongTokens;
+        if (wordFollows) {
+            wordCount += pendingWords;
+            syllableCount += pendingSyllables;
+            polysyllableCount += pendingPolysyllables;
+        }
+        pendingCharacters = pendingTokens = pendingLongTokens = 0;
+        pendingWords = pendingSyllables = pendingPolysyllables = 0;
+        controlPending = false;
+    }
+
+    /**
+     * Ends the current run at whitespace. The control characters of the run only count if a
+     * word character follows in the same sentence, so their part of the counts stays pending.
+     */
+    private void endRun() {
+        if (inWord) {
+            inWord = false;
+            if (countSyllables) {
+                int syllables = wordSyllables();
+                if (controlTail > 0) {
+                    addSyllables(tailFreeSyllables);
+                    pendingSyllables += syllables - tailFreeSyllables;
+                    pendingPolysyllables += (syllables > 2 ? 1 : 0) - (tailFreeSyllables > 2 ? 1 : 0);
+                } else {
+                    addSyllables(syllables);
+                }
+            }
+            controlTail = 0;
+        } else if (inControlRun) {
+            inControlRun = false;
+            pendingWords++;
+            if (countSyllables) {
+                int syllables = wordSyllables();
+                pendingSyllables += syllables;
+                if (syllables > 2) {
+                    pendingPolysyllables++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends the current word at a terminator or at the end of the text, without the control
+     * characters after its last word character.
+     */
+    private void endWord() {
+        inControlRun = false;
+        if (!inWord) {
+            return;
+        }
+        inWord = false;
+        if (countSyllables) {
+            addSyllables(controlTail > 0 ? tailFreeSyllables : wordSyllables());
+        }
+        controlTail = 0;
+    }
+
+    private int wordSyllables() {
+        int syllables = SyllableSource.UNKNOWN;
+        if (syllableSource != null && wordLength <= WORD_BUFFER_SIZE) {
+            syllables = syllableSource.count(wordBuffer, 0, wordLength);
+        }
+        if (syllables == SyllableSource.UNKNOWN) {
+            syllables = SyllableCounter.adjust(vowelGroups, wordLength, tail0, tail1, tail2, tail3);
+        }
+        return syllables;
+    }
+
+    private void addSyllables(int syllables) {
+        syllableCount += syllables;
+        if (syllables > 2) {
+            polysyllableCount++;
+        }
+    }
+
+    /**
+     * Advances the state machine over a block whose masks were just classified.
+     * @param chars  The characters of the block, only read when counting syllables.
+     * @param offset Index of the first character of the block.
+     */
+    private void acceptBlock(char[] chars, int offset) {
+        long whitespace = masks[CharClassifier.WHITESPACE];
+        long terminators = masks[CharClassifier.TERMINATORS];
+        long nonWhitespace = ~whitespace;
+        long word = nonWhitespace & ~terminators;
+
+        characterCount += Long.bitCount(nonWhitespace);
+
+        // Bit i of previousN tells whether the character N positions before i is not whitespace
+        long previous1 = (nonWhitespace << 1) | (tokenLength >= 1 ? 1 : 0);
+        long previous2 = (nonWhitespace << 2) | (tokenLength >= 1 ? 2 : 0) | (tokenLength >= 2 ? 1 : 0);
+        tokenCount += Long.bitCount(nonWhitespace & ~previous1);
+        longTokenCount += Long.bitCount(nonWhitespace & previous1 & ~previous2);
+        tokenLength = nonWhitespace < 0 ? (previous1 < 0 ? 2 : 1) : 0;
+
+        // A terminator ends a sentence when the last non-whitespace character before it is a word character
+        for (long remaining = terminators; remaining != 0; remaining &= remaining - 1) {
+            int i = Long.numberOfTrailingZeros(remaining);
+            long before = nonWhitespace & ((1L << i) - 1);
+            if (before == 0 ? sentenceHasWord : (word & Long.highestOneBit(before)) != 0) {
+                sentenceCount++;
+            }
+        }
+        if (nonWhitespace != 0) {
+            sentenceHasWord = (word & Long.highestOneBit(nonWhitespace)) != 0;
+            visibleSeen = true;
+        }
+
+        wordCount += Long.bitCount(word & ~((word << 1) | (inWord ? 1 : 0)));
+        if (countSyllables) {
+            acceptBlockWords(chars, offset, word);
+        }
+        inWord = word < 0;
+    }
+
+    /**
+     * Runs the syllable analysis over every word run of a block, the first one possibly
+     * continuing a word of the previous block and the last one possibly continuing into the next.
+     */
+    private void acceptBlockWords(char[] chars, int offset, long word) {
+        if (inWord && (word & 1) == 0) {
+            addSyllables(wordSyllables()); // The word ended with the previous block
+        }
+        long vowels = masks[CharClassifier.VOWELS];
+        long vowelGroupStarts = vowels & ~((vowels << 1) | (inWord && lastWasVowel ? 1 : 0));
+        for (long remaining = word; remaining != 0; ) {
+            int start = Long.numberOfTrailingZeros(remaining);
+            int end = start + Long.numberOfTrailingZeros(~(remaining >>> start));
+            if (start > 0 || !inWord) {
+                wordLength = 0;
+                vowelGroups = 0;
+                tail0 = tail1 = tail2 = tail3 = 0;
+            }
+            long run = (end == BLOCK_SIZE ? -1L : (1L << end) - 1) & (-1L << start);
+            vowelGroups += Long.bitCount(vowelGroupStarts & run);
+            if (wordBuffer != null && wordLength < WORD_BUFFER_SIZE) {
+                System.arraycopy(chars, offset + start, wordBuffer, wordLength,
+                        Math.min(end - start, WORD_BUFFER_SIZE - wordLength));
+            }
+            wordLength += end - start;
+            for (int i = Math.max(start, end - 4); i < end; i++) {
+                tail3 = tail2;
+                tail2 = tail1;
+                tail1 = tail0;
+                tail0 = chars[offset + i];
+            }
+            lastWasVowel = (vowels & (1L << (end - 1))) != 0;
+            if (end == BLOCK_SIZE) {
+                break; // The word goes on in the next block
+            }
+            addSyllables(wordSyllables());
+            remaining &= ~run;
+        }
+    }
+
+    /**
+     * Finds the places where a text can be cut into pieces that are scanned separately, with
+     * statistics that {@link TextStatistics#combine(TextStatistics) combine} to those of the
+     * whole text: before a visible character when the previous visible character is a
+     * terminator and only whitespace lies between them. There a sentence and a token have
+     * both ended, and no control character waits for what follows.
+     */
+    static final class SplitPoints {
+
+        private boolean afterTerminator;
+        private boolean whitespaceSince;
+
+        /**
+         * Advances over the next character of the text.
+         * @param c The character.
+         * @return True if the text can be cut just before it.
+         */
+        boolean isSplitBefore(char c) {
+            byte charClass = c < 128 ? CHAR_CLASSES[c] : WORD;
+            if (charClass == WHITESPACE) {
+                whitespaceSince = afterTerminator;
+                return false;
+            }
+            boolean split = afterTerminator && whitespaceSince && charClass != CONTROL;
+            afterTerminator = charClass == TERMINATOR;
+            whitespaceSince = false;
+            return split;
+        }
+    }
+}
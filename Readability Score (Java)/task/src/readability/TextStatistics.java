@@ -0,0 +1,215 @@
+package readability;
+
+import java.util.Objects;
+
+/**
+ * Immutable raw counts of a text, from which all readability scores are computed.
+ * <p>
+ * Statistics of separate pieces of text can be merged with {@link #combine(TextStatistics)},
+ * which is associative and has {@link #EMPTY} as its identity. Combining the statistics of
+ * two texts gives the same result as scanning them one after the other, as long as the first
+ * one ends a sentence. That makes it cheap to count shards, files or chapters independently
+ * and score the whole corpus afterwards.
+ */
+public final class TextStatistics {
+
+    /** Statistics of an empty text. */
+    public static final TextStatistics EMPTY = new TextStatistics(0, 0, 0, 0, 0, 0, 0);
+
+    private final long sentenceCount;
+    private final long wordCount;
+    private final long characterCount;
+    private final long syllableCount;
+    private final long polysyllableCount;
+    // Whitespace-separated tokens, only used when the text has no words at all
+    private final long tokenCount;
+    private final long longTokenCount;
+
+    TextStatistics(long sentenceCount, long wordCount, long characterCount, long syllableCount,
+                   long polysyllableCount, long tokenCount, long longTokenCount) {
+        this.sentenceCount = sentenceCount;
+        this.wordCount = wordCount;
+        this.characterCount = characterCount;
+        this.syllableCount = syllableCount;
+        this.polysyllableCount = polysyllableCount;
+        this.tokenCount = tokenCount;
+        this.longTokenCount = longTokenCount;
+    }
+
+    /**
+     * Creates statistics from counts obtained elsewhere.
+     * @param sentenceCount     Number of sentences.
+     * @param wordCount         Number of words.
+     * @param characterCount    Number of non-whitespace characters.
+     * @param syllableCount     Number of syllables.
+     * @param polysyllableCount Number of words with more than two syllables.
+     * @return The statistics.
+     */
+    public static TextStatistics of(long sentenceCount, long wordCount, long characterCount,
+                                    long syllableCount, long polysyllableCount) {
+        return new TextStatistics(sentenceCount, wordCount, characterCount, syllableCount,
+                polysyllableCount, wordCount, syllableCount);
+    }
+
+    /**
+     * Merges these statistics with those of the text that follows.
+     * @param other Statistics of the following text.
+     * @return The statistics of both texts together.
+     */
+    public TextStatistics combine(TextStatistics other) {
+        return new TextStatistics(
+                sentenceCount + other.sentenceCount,
+                wordCount + other.wordCount,
+                characterCount + other.characterCount,
+                syllableCount + other.syllableCount,
+                polysyllableCount + other.polysyllableCount,
+                tokenCount + other.tokenCount,
+                longTokenCount + other.longTokenCount);
+    }
+
+    // --- Getters for Basic Metrics ---
+
+    public long getSentenceCount() {
+        // Text without any word (e.g. "...") is treated as one sentence
+        return isWordless() ? 1 : sentenceCount;
+    }
+
+    public long getWordCount() {
+        return isWordless() ? tokenCount : wordCount;
+    }
+
+    public long getCharacterCount() {
+        return characterCount;
+    }
+
+    public long getSyllableCount() {
+        // A lone terminator loses its only character to the trailing punctuation rule
+        return isWordless() ? longTokenCount : syllableCount;
+    }
+
+    public long getPolysyllableCount() {
+        return polysyllableCount;
+    }
+
+    // --- Readability Scores ---
+
+    /**
+     * Automated Readability Index (ARI).
+     * @return The ARI score.
+     */
+    public double getAriScore() {
+        return ariScore(getCharacterCount(), getWordCount(), getSentenceCount());
+    }
+
+    /**
+     * Flesch–Kincaid Readability Tests (FK).
+     * @return The FK score.
+     */
+    public double getFkScore() {
+        return fkScore(getWordCount(), getSentenceCount(), getSyllableCount());
+    }
+
+    /**
+     * Simple Measure of Gobbledygook (SMOG).
+     * Note: SMOG requires at least 30 sentences for standard calculation.
+     * This implementation applies the formula regardless, but accuracy may vary for short texts.
+     * @return The SMOG score, or 0 if there are no polysyllables.
+     */
+    public double getSmogScore() {
+        return smogScore(getPolysyllableCount(), getSentenceCount());
+    }
+
+    /**
+     * Coleman–Liau Index (CL).
+     * @return The CL score.
+     */
+    public double getClScore() {
+        return clScore(getCharacterCount(), getWordCount(), getSentenceCount());
+    }
+
+    /**
+     * Computes the score of an index from plain counts, e.g. those of a single sentence,
+     * without creating any statistics object.
+     * @param type              The index.
+     * @param sentenceCount     Number of sentences.
+     * @param wordCount         Number of words.
+     * @param characterCount    Number of characters.
+     * @param syllableCount     Number of syllables.
+     * @param polysyllableCount Number of polysyllables.
+     * @return The score.
+     */
+    static double score(ReadabilityScoreMapping.IndexType type, long sentenceCount, long wordCount,
+                        long characterCount, long syllableCount, long polysyllableCount) {
+        return switch (type) {
+            case ARI -> ariScore(characterCount, wordCount, sentenceCount);
+            case FK -> fkScore(wordCount, sentenceCount, syllableCount);
+            case SMOG -> smogScore(polysyllableCount, sentenceCount);
+            case CL -> clScore(characterCount, wordCount, sentenceCount);
+        };
+    }
+
+    // --- Private Helper Methods ---
+
+    private static double ariScore(long characterCount, long wordCount, long sentenceCount) {
+        return 4.71 * ((double) characterCount / safe(wordCount)) +
+                0.5 * ((double) safe(wordCount) / safe(sentenceCount)) - 21.43;
+    }
+
+    private static double fkScore(long wordCount, long sentenceCount, long syllableCount) {
+        return 0.39 * ((double) safe(wordCount) / safe(sentenceCount)) +
+                11.8 * ((double) syllableCount / safe(wordCount)) - 15.59;
+    }
+
+    private static double smogScore(long polysyllableCount, long sentenceCount) {
+        if (polysyllableCount > 0) {
+            return 1.043 * Math.sqrt((double) polysyllableCount * (30.0 / safe(sentenceCount))) + 3.1291;
+        }
+        return 0.0;
+    }
+
+    private static double clScore(long characterCount, long wordCount, long sentenceCount) {
+        double avgLettersPer100Words = ((double) characterCount / safe(wordCount)) * 100.0;
+        double avgSentencesPer100Words = ((double) safe(sentenceCount) / safe(wordCount)) * 100.0;
+        return 0.0588 * avgLettersPer100Words - 0.296 * avgSentencesPer100Words - 15.8;
+    }
+
+    private boolean isWordless() {
+        return sentenceCount == 0 && characterCount > 0;
+    }
+
+    // Ensure division by zero doesn't happen
+    private static long safe(long count) {
+        return Math.max(1, count);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TextStatistics other)) {
+            return false;
+        }
+        return sentenceCount == other.sentenceCount && wordCount == other.wordCount
+                && characterCount == other.characterCount && syllableCount == other.syllableCount
+                && polysyllableCount == other.polysyllableCount && tokenCount == other.tokenCount
+                && longTokenCount == other.longTokenCount;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sentenceCount, wordCount, characterCount, syllableCount,
+                polysyllableCount, tokenCount, longTokenCount);
+    }
+
+    @Override
+    public String toString() {
+        return "TextStatistics{" +
+                "sentences=" + getSentenceCount() +
+                ", words=" + getWordCount() +
+                ", characters=" + getCharacterCount() +
+                ", syllables=" + getSyllableCount() +
+                ", polysyllables=" + getPolysyllableCount() +
+                '}';
+    }
+}
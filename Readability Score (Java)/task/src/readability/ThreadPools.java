@@ -0,0 +1,64 @@
+package readability;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Factory methods for the executors shared by the batch and server modes and the metrics exporter.
+ */
+final class ThreadPools {
+
+    private ThreadPools() {
+    }
+
+    /**
+     * Creates an executor for blocking I/O. Uses one virtual thread per task when the
+     * running JDK supports them (21+), and a cached pool of daemon threads otherwise.
+     * @return The executor.
+     */
+    static ExecutorService newIoExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(daemonThreadFactory());
+        }
+    }
+
+    /**
+     * Creates a fixed pool for CPU-bound work.
+     * @param threads Number of threads, usually the number of available processors.
+     * @return The executor.
+     */
+    static ExecutorService newCpuExecutor(int threads) {
+        return Executors.newFixedThreadPool(threads, daemonThreadFactory());
+    }
+
+    /**
+     * Creates a single daemon thread for periodic tasks.
+     * @return The executor.
+     */
+    static ScheduledExecutorService newTimer() {
+        return Executors.newSingleThreadScheduledExecutor(daemonThreadFactory());
+    }
+
+    /**
+     * Gets the number of tasks waiting for a thread of an executor.
+     * @param executor An executor created by this class.
+     * @return The queue length, or 0 for an executor without a queue, such as virtual threads.
+     */
+    static int queuedTasks(ExecutorService executor) {
+        return executor instanceof ThreadPoolExecutor pool ? pool.getQueue().size() : 0;
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = defaultFactory.newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,256 @@
+package readability;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The words and sentences of a text, kept as offsets into the text instead of substrings.
+ * <p>
+ * Each word is an (offset, length) pair and each sentence the index of its first word plus
+ * its end offset, all stored in growable {@code int[]} arrays: 8 bytes per word and 8 per
+ * sentence, against a String object, its array and a list slot for every token. Iterating
+ * over the offsets allocates nothing; a {@link CharSequence} view of a token is created only
+ * when asked for, and reads through to the source without copying it.
+ * <p>
+ * Words and sentences follow {@link TextScanner}: a word is a run of characters that are
+ * neither whitespace nor terminators, between the first and the last word character of its
+ * sentence, and a sentence ends right after the first terminator that follows one of its
+ * words, or after its last word at the end of the text. The source must not change while
+ * the index is in use.
+ */
+public final class TokenIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final CharSequence source;
+    private int wordCount;
+    private int[] wordStarts = new int[INITIAL_CAPACITY];
+    private int[] wordLengths = new int[INITIAL_CAPACITY];
+    private int sentenceCount;
+    private int[] sentenceFirstWords = new int[INITIAL_CAPACITY];
+    private int[] sentenceEnds = new int[INITIAL_CAPACITY];
+
+    private TokenIndex(CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * Indexes the words and sentences of a text.
+     * @param text The text, which is referenced, not copied.
+     * @return The index.
+     */
+    public static TokenIndex of(CharSequence text) {
+        TokenIndex index = new TokenIndex(text);
+        boolean sentenceOpen = false;
+        int wordStart = 0; // Start of the last word of the open sentence
+        int wordEnd = 0; // Just after the last word character of the open sentence
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (TextScanner.isTerminator(c)) {
+                if (sentenceOpen) {
+                    index.addWord(wordStart, wordEnd);
+                    index.sentenceEnds[index.sentenceCount++] = i + 1;
+                    sentenceOpen = false;
+                }
+            } else if (TextScanner.isWordCharacter(c)) {
+                if (!sentenceOpen) {
+                    index.openSentence();
+                    sentenceOpen = true;
+                    wordStart = i;
+                } else if (wordEnd < i) {
+                    wordStart = index.addGapWords(wordStart, wordEnd, i);
+                }
+                wordEnd = i + 1;
+            }
+        }
+        if (sentenceOpen) {
+            index.addWord(wordStart, wordEnd);
+            index.sentenceEnds[index.sentenceCount++] = wordEnd;
+        }
+        return index;
+    }
+
+    /**
+     * Gets the indexed text.
+     * @return The source text.
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    // --- Words ---
+
+    /**
+     * Gets the number of words.
+     * @return The word count.
+     */
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    /**
+     * Gets the offset of the first character of a word.
+     * @param word Index of the word.
+     * @return The start offset.
+     */
+    public int getWordStart(int word) {
+        return wordStarts[Objects.checkIndex(word, wordCount)];
+    }
+
+    /**
+     * Gets the number of characters of a word.
+     * @param word Index of the word.
+     * @return The length.
+     */
+    public int getWordLength(int word) {
+        return wordLengths[Objects.checkIndex(word, wordCount)];
+    }
+
+    /**
+     * Gets a view of a word, backed by the source text.
+     * @param word Index of the word.
+     * @return The characters of the word.
+     */
+    public CharSequence getWord(int word) {
+        int start = getWordStart(word);
+        return new Slice(source, start, start + wordLengths[word]);
+    }
+
+    // --- Sentences ---
+
+    /**
+     * Gets the number of sentences.
+     * @return The sentence count.
+     */
+    public int getSentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * Gets the index of the first word of a sentence.
+     * @param sentence Index of the sentence.
+     * @return Index of the word.
+     */
+    public int getFirstWord(int sentence) {
+        return sentenceFirstWords[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets the number of words of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The word count.
+     */
+    public int getSentenceWordCount(int sentence) {
+        Objects.checkIndex(sentence, sentenceCount);
+        int next = sentence + 1 < sentenceCount ? sentenceFirstWords[sentence + 1] : wordCount;
+        return next - sentenceFirstWords[sentence];
+    }
+
+    /**
+     * Gets the offset of the first character of a sentence, i.e. of its first word.
+     * @param sentence Index of the sentence.
+     * @return The start offset.
+     */
+    public int getSentenceStart(int sentence) {
+        return wordStarts[getFirstWord(sentence)];
+    }
+
+    /**
+     * Gets the offset just after the last character of a sentence.
+     * @param sentence Index of the sentence.
+     * @return The end offset.
+     */
+    public int getSentenceEnd(int sentence) {
+        return sentenceEnds[Objects.checkIndex(sentence, sentenceCount)];
+    }
+
+    /**
+     * Gets a view of a sentence, backed by the source text.
+     * @param sentence Index of the sentence.
+     * @return The characters of the sentence, from its first word to its terminator.
+     */
+    public CharSequence getSentence(int sentence) {
+        return new Slice(source, getSentenceStart(sentence), sentenceEnds[sentence]);
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Adds the words that end between two word characters of a sentence, where only
+     * whitespace and control characters lie: the last word, which ends at the first
+     * whitespace if there is one, then every run of control characters between whitespace.
+     * @param wordStart Start of the last word.
+     * @param gapStart  Just after its last word character.
+     * @param gapEnd    The next word character.
+     * @return The start of the word holding that character.
+     */
+    private int addGapWords(int wordStart, int gapStart, int gapEnd) {
+        int runStart = wordStart;
+        for (int i = gapStart; i < gapEnd; i++) {
+            if (TextScanner.isWhitespace(source.charAt(i))) {
+                if (runStart >= 0) {
+                    addWord(runStart, i);
+                    runStart = -1;
+                }
+            } else if (runStart < 0) {
+                runStart = i;
+            }
+        }
+        return runStart < 0 ? gapEnd : runStart;
+    }
+
+    private void addWord(int start, int end) {
+        if (wordCount == wordStarts.length) {
+            wordStarts = Arrays.copyOf(wordStarts, wordCount * 2);
+            wordLengths = Arrays.copyOf(wordLengths, wordCount * 2);
+        }
+        wordStarts[wordCount] = start;
+        wordLengths[wordCount] = end - start;
+        wordCount++;
+    }
+
+    private void openSentence() {
+        if (sentenceCount == sentenceFirstWords.length) {
+            sentenceFirstWords = Arrays.copyOf(sentenceFirstWords, sentenceCount * 2);
+            sentenceEnds = Arrays.copyOf(sentenceEnds, sentenceCount * 2);
+        }
+        sentenceFirstWords[sentenceCount] = wordCount;
+    }
+
+    /**
+     * A range of a character sequence, read in place.
+     */
+    private static final class Slice implements CharSequence {
+
+        private final CharSequence source;
+        private final int start;
+        private final int end;
+
+        Slice(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + Objects.checkIndex(index, end - start));
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            Objects.checkFromToIndex(from, to, end - start);
+            return new Slice(source, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, end).toString();
+        }
+    }
+}
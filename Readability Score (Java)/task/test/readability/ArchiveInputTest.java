@@ -0,0 +1,215 @@
+package readability;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static readability.TextFixtures.randomText;
+import static readability.TextFixtures.scan;
+
+/**
+ * Builds ZIP and TAR archives in memory and reads them back with {@link TarInputStream} and
+ * {@link ArchiveInput}, whose entries must scan like the texts that were archived.
+ */
+public class ArchiveInputTest {
+
+    @Test
+    public void tarEntriesSkipDirectoriesAndPadding() throws IOException {
+        Map<String, String> files = texts(1, 511, 512, 513, 0, 1300);
+        TarInputStream tar = new TarInputStream(new ByteArrayInputStream(tar(files, true)));
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            TarInputStream.Entry entry = tar.getNextEntry();
+            assertEquals(file.getKey(), entry.name());
+            assertEquals(file.getValue().length(), entry.size());
+            assertEquals(file.getKey(), file.getValue(), new String(tar.readAllBytes(), StandardCharsets.US_ASCII));
+            assertEquals(-1, tar.read());
+        }
+        assertNull(tar.getNextEntry());
+    }
+
+    @Test
+    public void unreadContentIsSkipped() throws IOException {
+        Map<String, String> files = texts(700, 20);
+        TarInputStream tar = new TarInputStream(new ByteArrayInputStream(tar(files, true)));
+        tar.getNextEntry();
+        assertEquals(files.get("docs/0.txt").charAt(0), tar.read());
+        assertEquals("docs/1.txt", tar.getNextEntry().name());
+        assertEquals(files.get("docs/1.txt"), new String(tar.readAllBytes(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void missingEndOfArchiveMarkerIsTolerated() throws IOException {
+        TarInputStream tar = new TarInputStream(new ByteArrayInputStream(tar(texts(10), false)));
+        assertEquals("docs/0.txt", tar.getNextEntry().name());
+        assertNull(tar.getNextEntry());
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedContentIsAnError() throws IOException {
+        byte[] archive = tar(texts(700), true);
+        // The directory header, the file header and part of its content
+        TarInputStream tar = new TarInputStream(new ByteArrayInputStream(Arrays.copyOf(archive, 3 * 512 + 100)));
+        tar.getNextEntry();
+        tar.readAllBytes();
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedHeaderIsAnError() throws IOException {
+        byte[] archive = tar(texts(10), true);
+        new TarInputStream(new ByteArrayInputStream(Arrays.copyOf(archive, 512 + 300))).getNextEntry();
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptHeaderIsAnError() throws IOException {
+        byte[] archive = tar(texts(10), true);
+        archive[512 + 10]++; // A name byte of the file header, covered by the checksum
+        TarInputStream tar = new TarInputStream(new ByteArrayInputStream(archive));
+        tar.getNextEntry();
+    }
+
+    @Test
+    public void entriesScanLikeTheirText() throws IOException, InterruptedException {
+        Map<String, String> files = texts(0, 1, 512, 700, 5000);
+        byte[] tar = tar(files, true);
+        ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzip)) {
+            out.write(tar);
+        }
+        for (byte[] archive : List.of(zip(files), tar, gzip.toByteArray())) {
+            Path path = Files.createTempFile("archive", ".bin");
+            try {
+                Files.write(path, archive);
+                assertTrue(ArchiveInput.isArchive(path));
+                List<String> names = new ArrayList<>();
+                List<TextStatistics> statistics = new ArrayList<>();
+                ArchiveInput.forEachEntry(path, (name, content) -> {
+                    TextScanner scanner = new TextScanner();
+                    ByteInput.scan(content, scanner);
+                    names.add(name);
+                    statistics.add(scanner.finish().getStatistics());
+                });
+                assertEquals(new ArrayList<>(files.keySet()), names);
+                List<TextStatistics> expected = new ArrayList<>();
+                files.values().forEach(text -> expected.add(scan(text)));
+                assertEquals(expected, statistics);
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedArchiveFileIsAnError() throws IOException, InterruptedException {
+        byte[] archive = tar(texts(2000), true);
+        Path path = Files.createTempFile("archive", ".tar");
+        try {
+            Files.write(path, Arrays.copyOf(archive, 2 * 512 + 1000));
+            ArchiveInput.forEachEntry(path, (name, content) -> content.readAllBytes());
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void plainTextIsNotAnArchive() throws IOException {
+        Path path = Files.createTempFile("archive", ".txt");
+        try {
+            Files.writeString(path, "Just some text. Not an archive at all!");
+            assertFalse(ArchiveInput.isArchive(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Draws ASCII texts of the given lengths, named docs/0.txt, docs/1.txt and so on.
+     */
+    private static Map<String, String> texts(int... lengths) {
+        SplittableRandom random = new SplittableRandom(lengths.length);
+        Map<String, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < lengths.length; i++) {
+            files.put("docs/" + i + ".txt", randomText(random, lengths[i]).replace('İ', 'I'));
+        }
+        return files;
+    }
+
+    private static byte[] zip(Map<String, String> files) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("docs/"));
+            zip.closeEntry();
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zip.putNextEntry(new ZipEntry(file.getKey()));
+                zip.write(file.getValue().getBytes(StandardCharsets.US_ASCII));
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a ustar archive: a directory entry, then the files, each padded to whole blocks.
+     */
+    private static byte[] tar(Map<String, String> files, boolean endOfArchiveMarker) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.writeBytes(tarHeader("docs/", '5', 0));
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            byte[] content = file.getValue().getBytes(StandardCharsets.US_ASCII);
+            bytes.writeBytes(tarHeader(file.getKey(), '0', content.length));
+            bytes.writeBytes(content);
+            bytes.writeBytes(new byte[(TarInputStream.BLOCK_SIZE - content.length % TarInputStream.BLOCK_SIZE)
+                    % TarInputStream.BLOCK_SIZE]);
+        }
+        if (endOfArchiveMarker) {
+            bytes.writeBytes(new byte[2 * TarInputStream.BLOCK_SIZE]);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] tarHeader(String name, char type, long size) {
+        byte[] header = new byte[TarInputStream.BLOCK_SIZE];
+        put(header, 0, name);
+        put(header, 100, "0000644");
+        put(header, 108, "0000000");
+        put(header, 116, "0000000");
+        put(header, 124, String.format("%011o", size));
+        put(header, 136, "00000000000");
+        put(header, 148, "        ");
+        header[156] = (byte) type;
+        put(header, 257, "ustar");
+        put(header, 263, "00");
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        put(header, 148, String.format("%06o", checksum));
+        header[154] = 0;
+        return header;
+    }
+
+    private static void put(byte[] header, int offset, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+}
@@ -0,0 +1,81 @@
+package readability;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static readability.TextFixtures.randomText;
+import static readability.TextFixtures.scan;
+
+/**
+ * Checks that the statistics maintained across edits are those of a fresh scan of the text.
+ */
+public class IncrementalDocumentTest {
+
+    @Test
+    public void initialTextIsScannedOnce() {
+        String text = "The cat sat. On the mat! Did it? Yes... it did";
+        assertEquals(scan(text), new IncrementalDocument(text).getStatistics());
+    }
+
+    @Test
+    public void sentencesWithoutWhitespaceKeepTheirTokenCounts() {
+        IncrementalDocument document = new IncrementalDocument("a.");
+        document.insert(2, "aba");
+        assertEquals(scan("a.aba"), document.getStatistics());
+        document.insert(2, " ");
+        assertEquals(scan("a. aba"), document.getStatistics());
+        document.delete(2, 1);
+        assertEquals(scan("a.aba"), document.getStatistics());
+    }
+
+    @Test
+    public void wordlessTextCountsTokensAcrossTerminators() {
+        IncrementalDocument document = new IncrementalDocument("... !!");
+        document.insert(3, "?");
+        assertEquals(scan("...? !!"), document.getStatistics());
+        assertEquals(1, document.getStatistics().getSentenceCount());
+        assertEquals(2, document.getStatistics().getWordCount());
+    }
+
+    @Test
+    public void editsAtSentenceBoundaries() {
+        IncrementalDocument document = new IncrementalDocument("One two. Three four! Five?");
+        document.insert(7, "x");
+        assertEquals(scan(document.getText()), document.getStatistics());
+        document.replace(8, 2, "!");
+        assertEquals(scan(document.getText()), document.getStatistics());
+        document.delete(0, document.length() - 1);
+        assertEquals(scan("?"), document.getStatistics());
+    }
+
+    @Test
+    public void deletingEverythingLeavesAnEmptyDocument() {
+        IncrementalDocument document = new IncrementalDocument("Hello there. General Kenobi.");
+        document.delete(0, document.length());
+        assertEquals(0, document.length());
+        assertEquals(TextStatistics.EMPTY, document.getStatistics());
+    }
+
+    @Test
+    public void randomEditsMatchAFullScan() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int run = 0; run < 500; run++) {
+            IncrementalDocument document = new IncrementalDocument();
+            for (int edit = 0; edit < 40; edit++) {
+                int length = document.length();
+                int offset = random.nextInt(length + 1);
+                int deleted = random.nextInt(Math.min(5, length - offset) + 1);
+                String replacement = randomText(random, random.nextInt(8));
+                document.replace(offset, deleted, replacement);
+                assertEquals(document.getText(), scan(document.getText()), document.getStatistics());
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsEditsOutsideTheText() {
+        new IncrementalDocument("Short.").delete(4, 3);
+    }
+}
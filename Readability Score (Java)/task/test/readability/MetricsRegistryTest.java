@@ -0,0 +1,138 @@
+package readability;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Records known latencies and reads the histograms back from the scrape output, as a
+ * Prometheus server would.
+ */
+public class MetricsRegistryTest {
+
+    private static final String NAME = "readability_request_duration_seconds";
+
+    @Test
+    public void bucketsAreCumulativeAndAgreeWithCountAndSum() {
+        // Exact small values, both sides of exported bounds, beyond the last bound and a clock going back
+        long[] latencies = {-5, 0, 7, 1023, 1024, 1025, 5_000, 999_999, 1_000_000, 1L << 35, (1L << 35) + 1,
+                60_000_000_000L};
+        MetricsRegistry registry = new MetricsRegistry();
+        LatencyHistogram histogram = registry.latency(NAME, "Request latency.", "endpoint", "score");
+        for (long latency : latencies) {
+            histogram.record(latency);
+        }
+        assertHistogram(registry.scrape(), "endpoint=\"score\"", latencies);
+    }
+
+    @Test
+    public void randomLatenciesMatchTheirScrape() {
+        SplittableRandom random = new SplittableRandom(43);
+        MetricsRegistry registry = new MetricsRegistry();
+        long[][] latencies = new long[3][];
+        for (int i = 0; i < latencies.length; i++) {
+            LatencyHistogram histogram = registry.latency(NAME, "Request latency.", "endpoint", "e" + i);
+            latencies[i] = new long[random.nextInt(2000)];
+            for (int k = 0; k < latencies[i].length; k++) {
+                // Log-uniform from 1 ns to about a minute
+                latencies[i][k] = (long) Math.pow(2, random.nextDouble(36));
+                histogram.record(latencies[i][k]);
+            }
+        }
+        String scrape = registry.scrape();
+        for (int i = 0; i < latencies.length; i++) {
+            assertHistogram(scrape, "endpoint=\"e" + i + '"', latencies[i]);
+        }
+    }
+
+    @Test
+    public void emptyHistogramHasEmptyBuckets() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.latency(NAME, "Request latency.", "endpoint", "idle");
+        String scrape = registry.scrape();
+        assertTrue(scrape, scrape.startsWith("# HELP " + NAME + " Request latency.\n# TYPE " + NAME + " histogram\n"));
+        assertHistogram(scrape, "endpoint=\"idle\"", new long[0]);
+    }
+
+    @Test
+    public void snapshotBucketsHoldTheirValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] latencies = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE};
+        for (long latency : latencies) {
+            histogram.record(latency);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(latencies.length, snapshot.count());
+        assertEquals(Long.MAX_VALUE, snapshot.max());
+        long counted = 0;
+        for (int bucket = 0; bucket < snapshot.counts().length; bucket++) {
+            long lower = bucket == 0 ? 0 : snapshot.upperBound(bucket - 1);
+            long upper = snapshot.upperBound(bucket);
+            long expected = 0;
+            for (long latency : latencies) {
+                // The last bucket is closed, so that it holds Long.MAX_VALUE itself
+                expected += latency >= lower && (latency < upper || upper == Long.MAX_VALUE) ? 1 : 0;
+            }
+            assertEquals("bucket " + bucket, expected, snapshot.counts()[bucket]);
+            counted += snapshot.counts()[bucket];
+        }
+        assertEquals(latencies.length, counted);
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Checks the histogram samples with the given labels: each bucket counts the latencies
+     * below its bound, so the buckets never decrease, the +Inf bucket and the count are the
+     * number of latencies and the sum is their total in seconds.
+     */
+    private static void assertHistogram(String scrape, String labels, long[] latencies) {
+        long total = 0;
+        for (long latency : latencies) {
+            total += Math.max(latency, 0);
+        }
+        List<String> buckets = samples(scrape, NAME + "_bucket{" + labels + ",le=\"");
+        assertTrue(scrape, buckets.size() > 1);
+        long previous = 0;
+        for (String bucket : buckets.subList(0, buckets.size() - 1)) {
+            int quote = bucket.indexOf('"');
+            long bound = Math.round(Double.parseDouble(bucket.substring(0, quote)) * 1e9);
+            long value = Long.parseLong(bucket.substring(bucket.indexOf(' ') + 1));
+            long expected = 0;
+            for (long latency : latencies) {
+                expected += Math.max(latency, 0) < bound ? 1 : 0;
+            }
+            assertEquals(bucket, expected, value);
+            assertTrue(bucket, value >= previous);
+            previous = value;
+        }
+        String last = buckets.get(buckets.size() - 1);
+        assertTrue(last, last.startsWith("+Inf\"} "));
+        assertEquals(latencies.length, Long.parseLong(last.substring(last.indexOf(' ') + 1)));
+        assertTrue(last, latencies.length >= previous);
+
+        List<String> count = samples(scrape, NAME + "_count{" + labels + "} ");
+        assertEquals(List.of(String.valueOf(latencies.length)), count);
+        List<String> sum = samples(scrape, NAME + "_sum{" + labels + "} ");
+        assertEquals(1, sum.size());
+        assertEquals(total / 1e9, Double.parseDouble(sum.get(0)), 1e-12 * Math.max(1, total / 1e9));
+    }
+
+    /**
+     * Gets the rest of every scrape line starting with a prefix, in order.
+     */
+    private static List<String> samples(String scrape, String prefix) {
+        List<String> samples = new ArrayList<>();
+        for (String line : scrape.split("\n")) {
+            if (line.startsWith(prefix)) {
+                samples.add(line.substring(prefix.length()));
+            }
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,93 @@
+package readability;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that scores are written with two decimals exactly as {@code %.2f} writes them.
+ */
+public class ResultWriterTest {
+
+    @Test
+    public void tiesRoundLikeFormatAtEveryMagnitude() throws IOException {
+        SplittableRandom random = new SplittableRandom(23);
+        for (long magnitude = 1; magnitude < ResultWriter.MAX_FAST_ROUNDING; magnitude *= 10) {
+            for (int i = 0; i < 2000; i++) {
+                long integer = magnitude + random.nextLong(magnitude * 9);
+                int cents = random.nextInt(100);
+                double tie = Double.parseDouble(integer + "." + (cents < 10 ? "0" : "") + cents + "5");
+                assertFormatted(tie);
+                assertFormatted(-tie);
+            }
+        }
+    }
+
+    @Test
+    public void tiesBelowOneRoundLikeFormat() throws IOException {
+        for (int cents = 0; cents < 100; cents++) {
+            assertFormatted(Double.parseDouble("0." + (cents < 10 ? "0" : "") + cents + "5"));
+        }
+    }
+
+    @Test
+    public void largeTiesRoundUp() throws IOException {
+        assertEquals("156851268.61", writeFixed2(156851268.605));
+        assertEquals("650842257.56", writeFixed2(650842257.555));
+    }
+
+    @Test
+    public void arbitraryValuesRoundLikeFormat() throws IOException {
+        SplittableRandom random = new SplittableRandom(29);
+        for (int i = 0; i < 20000; i++) {
+            double value = random.nextDouble() * Math.pow(10, random.nextInt(12)) - 50;
+            assertFormatted(value);
+        }
+        assertFormatted(0.0);
+        assertFormatted(-0.0);
+        assertFormatted(1e15 + 0.125);
+    }
+
+    @Test
+    public void specialValuesAreSpelledOut() throws IOException {
+        assertEquals("NaN", writeFixed2(Double.NaN));
+        assertEquals("Infinity", writeFixed2(Double.POSITIVE_INFINITY));
+        assertEquals("-Infinity", writeFixed2(Double.NEGATIVE_INFINITY));
+        assertEquals("NaN", appendFixed2(Double.NaN));
+        assertEquals("-Infinity", appendFixed2(Double.NEGATIVE_INFINITY));
+    }
+
+    // --- Private Helper Methods ---
+
+    private static void assertFormatted(double value) throws IOException {
+        String expected = String.format(Locale.ROOT, "%.2f", value);
+        assertEquals(Double.toString(value), expected, writeFixed2(value));
+        assertEquals(Double.toString(value), expected, appendFixed2(value));
+    }
+
+    private static String appendFixed2(double value) {
+        StringBuilder sb = new StringBuilder();
+        ResultWriter.appendFixed2(sb, value);
+        return sb.toString();
+    }
+
+    private static String writeFixed2(double value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ResultWriter writer = new ResultWriter(out, EnumSet.noneOf(ReadabilityScoreMapping.IndexType.class),
+                StandardCharsets.UTF_8) {
+            @Override
+            protected void writeRecord(String name, Readability readability) {
+            }
+        };
+        writer.writeFixed2(value);
+        writer.flush();
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,134 @@
+package readability;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static readability.TextFixtures.randomText;
+import static readability.TextFixtures.scan;
+
+/**
+ * Checks the per-sentence and per-paragraph counts against fresh scans of the same text.
+ */
+public class SentenceBreakdownTest {
+
+    @Test
+    public void totalsAreThoseOfAPlainScan() throws IOException {
+        SplittableRandom random = new SplittableRandom(3);
+        for (int run = 0; run < 300; run++) {
+            String text = randomText(random, random.nextInt(200));
+            assertEquals(text, scan(text), SentenceBreakdown.of(text).getStatistics());
+            assertEquals(text, scan(text), SentenceBreakdown.of(new TrickleReader(text, random)).getStatistics());
+        }
+    }
+
+    @Test
+    public void sentencesAddUpToTheTotals() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (int run = 0; run < 300; run++) {
+            String text = randomText(random, random.nextInt(200));
+            SentenceBreakdown breakdown = SentenceBreakdown.of(text);
+            TextStatistics total = breakdown.getStatistics();
+            if (total.getCharacterCount() == 0 || breakdown.getSentenceCount() == 0) {
+                continue; // Empty or wordless text, which has no recorded sentence
+            }
+            long words = 0;
+            long characters = 0;
+            long syllables = 0;
+            long polysyllables = 0;
+            for (int i = 0; i < breakdown.getSentenceCount(); i++) {
+                words += breakdown.getWordCount(i);
+                characters += breakdown.getCharacterCount(i);
+                syllables += breakdown.getSyllableCount(i);
+                polysyllables += breakdown.getPolysyllableCount(i);
+            }
+            assertEquals(text, total.getSentenceCount(), breakdown.getSentenceCount());
+            assertEquals(text, total.getWordCount(), words);
+            assertEquals(text, total.getCharacterCount(), characters);
+            assertEquals(text, total.getSyllableCount(), syllables);
+            assertEquals(text, total.getPolysyllableCount(), polysyllables);
+        }
+    }
+
+    @Test
+    public void eachSentenceSpansItsWords() {
+        SplittableRandom random = new SplittableRandom(9);
+        for (int run = 0; run < 300; run++) {
+            String text = randomText(random, random.nextInt(200));
+            SentenceBreakdown breakdown = SentenceBreakdown.of(text);
+            for (int i = 0; i < breakdown.getSentenceCount(); i++) {
+                String sentence = text.substring(breakdown.getStart(i), breakdown.getEnd(i));
+                TextStatistics statistics = scan(sentence);
+                assertEquals(sentence, 1, statistics.getSentenceCount());
+                assertEquals(sentence, statistics.getWordCount(), breakdown.getWordCount(i));
+                assertEquals(sentence, statistics.getSyllableCount(), breakdown.getSyllableCount(i));
+                assertEquals(sentence, statistics.getPolysyllableCount(), breakdown.getPolysyllableCount(i));
+            }
+        }
+    }
+
+    @Test
+    public void paragraphsEndAtBlankLinesBetweenSentences() {
+        String text = "One here. Two there.\n\nThree now!\n \t\nFour, and\n\nstill four.";
+        SentenceBreakdown breakdown = SentenceBreakdown.of(text);
+        assertEquals(4, breakdown.getSentenceCount());
+        assertEquals(3, breakdown.getParagraphCount());
+        assertEquals(2, breakdown.getParagraphSentenceCount(0));
+        assertEquals(1, breakdown.getParagraphSentenceCount(1));
+        assertEquals(3, breakdown.getFirstSentence(2));
+        assertEquals("Four, and\n\nstill four.", text.substring(breakdown.getStart(3), breakdown.getEnd(3)));
+
+        TextStatistics first = breakdown.getParagraphStatistics(0);
+        assertEquals(scan("One here. Two there.").getWordCount(), first.getWordCount());
+        assertEquals(2, first.getSentenceCount());
+    }
+
+    @Test
+    public void hardestSentencesComeFirst() {
+        SentenceBreakdown breakdown = SentenceBreakdown.of(
+                "Cats nap. Unquestionably incomprehensible documentation exists. Dogs run! "
+                        + "Internationalization complicates everything considerably? Yes.");
+        for (ReadabilityScoreMapping.IndexType type : ReadabilityScoreMapping.IndexType.values()) {
+            int[] expected = IntStream.range(0, breakdown.getSentenceCount()).boxed()
+                    .sorted(Comparator.comparingDouble((Integer i) -> -breakdown.getScore(i, type)))
+                    .limit(3)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            assertArrayEquals(type.name(), expected, breakdown.hardest(type, 3));
+        }
+        assertEquals(0, breakdown.hardest(ReadabilityScoreMapping.IndexType.ARI, 0).length);
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Hands out a text a few characters at a time, as a slow stream would.
+     */
+    private static final class TrickleReader extends Reader {
+
+        private final StringReader text;
+        private final SplittableRandom random;
+
+        TrickleReader(String text, SplittableRandom random) {
+            this.text = new StringReader(text);
+            this.random = random;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return text.read(buffer, offset, Math.min(length, 1 + random.nextInt(7)));
+        }
+
+        @Override
+        public void close() {
+            text.close();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package readability;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static readability.TextFixtures.randomText;
+import static readability.TextFixtures.scan;
+
+/**
+ * Checks the window against fresh scans of the text up to the sentence ends it covers.
+ */
+public class SlidingWindowReadabilityTest {
+
+    @Test
+    public void unboundedWindowMatchesAScanOfCompleteSentences() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int run = 0; run < 300; run++) {
+            String text = randomText(random, random.nextInt(200));
+            SlidingWindowReadability window = SlidingWindowReadability.lastSentences(Integer.MAX_VALUE);
+            feedInPieces(window, text, random);
+            int[] ends = sentenceEnds(text);
+            assertWindow(text, text, ends.length == 0 ? 0 : ends[ends.length - 1], 0, window);
+        }
+    }
+
+    @Test
+    public void windowKeepsTheLastSentences() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int size = 1; size <= 5; size++) {
+            for (int run = 0; run < 100; run++) {
+                String text = randomText(random, random.nextInt(300));
+                SlidingWindowReadability window = SlidingWindowReadability.lastSentences(size);
+                feedInPieces(window, text, random);
+                int[] ends = sentenceEnds(text);
+                int last = ends.length == 0 ? 0 : ends[ends.length - 1];
+                int base = ends.length > size ? ends[ends.length - size - 1] : 0;
+                assertWindow(text, text, last, base, window);
+            }
+        }
+    }
+
+    @Test
+    public void sentencesLeaveTheWindowWhenTheyAreTooOld() {
+        long[] now = {0};
+        SlidingWindowReadability window = new SlidingWindowReadability(Integer.MAX_VALUE,
+                Duration.ofSeconds(10).toNanos(), () -> now[0]);
+        window.accept("First one. ");
+        now[0] = Duration.ofSeconds(6).toNanos();
+        window.accept("Second one here. Third");
+        assertEquals(2, window.getSentenceCount());
+
+        now[0] = Duration.ofSeconds(12).toNanos();
+        assertEquals(1, window.getSentenceCount());
+        assertEquals(3, window.getStatistics().getWordCount());
+
+        window.accept(" one!");
+        assertEquals(2, window.getSentenceCount());
+        now[0] = Duration.ofSeconds(30).toNanos();
+        assertEquals(0, window.getSentenceCount());
+        assertEquals(TextStatistics.EMPTY, window.getStatistics());
+    }
+
+    @Test
+    public void unterminatedWordsWaitForTheirSentence() {
+        SlidingWindowReadability window = SlidingWindowReadability.lastSentences(2);
+        window.accept("Only words so far");
+        assertEquals(0, window.getSentenceCount());
+        window.accept(".");
+        assertEquals(4, window.getStatistics().getWordCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyWindow() {
+        SlidingWindowReadability.lastSentences(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsANonPositiveDuration() {
+        SlidingWindowReadability.lastDuration(Duration.ZERO);
+    }
+
+    // --- Private Helper Methods ---
+
+    /**
+     * Checks the window against the scan of text[0, end) minus the scan of text[0, base).
+     */
+    private static void assertWindow(String message, String text, int end, int base, SlidingWindowReadability window) {
+        TextStatistics all = scan(text.substring(0, end));
+        TextStatistics before = scan(text.substring(0, base));
+        TextStatistics actual = window.getStatistics();
+        assertEquals(message, all.getSentenceCount() - before.getSentenceCount(), actual.getSentenceCount());
+        assertEquals(message, all.getWordCount() - before.getWordCount(), actual.getWordCount());
+        assertEquals(message, all.getCharacterCount() - before.getCharacterCount(), actual.getCharacterCount());
+        assertEquals(message, all.getSyllableCount() - before.getSyllableCount(), actual.getSyllableCount());
+        assertEquals(message, all.getPolysyllableCount() - before.getPolysyllableCount(), actual.getPolysyllableCount());
+    }
+
+    /**
+     * Finds the offset just after each character at which a scanner counts a sentence.
+     */
+    private static int[] sentenceEnds(String text) {
+        TextScanner scanner = new TextScanner();
+        int[] ends = new int[text.length()];
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            scanner.accept(text.charAt(i));
+            if (scanner.getSentenceCount() > count) {
+                ends[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(ends, count);
+    }
+
+    private static void feedInPieces(SlidingWindowReadability window, String text, SplittableRandom random) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; ) {
+            int length = Math.min(chars.length - i, 1 + random.nextInt(20));
+            if (random.nextBoolean()) {
+                window.accept(text.substring(i, i + length));
+            } else {
+                window.accept(chars, i, length);
+            }
+            i += length;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package readability;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the cached counts against {@link SyllableCounter}, the TinyLFU admission and the
+ * hit and miss statistics.
+ */
+public class SyllableCacheTest {
+
+    private static final String LETTERS = "abcdeiouyst'ABEY";
+
+    @Test
+    public void cachedCountsAreThoseOfTheCounter() {
+        SyllableCache cache = new SyllableCache(256);
+        SplittableRandom random = new SplittableRandom(31);
+        for (int i = 0; i < 20000; i++) {
+            // Some words longer than the cache keeps, and repeats that are answered from it
+            char[] word = randomWord(random, 1 + random.nextInt(random.nextInt(10) == 0 ? 40 : 8));
+            assertEquals(new String(word), SyllableCounter.count(word, 0, word.length),
+                    cache.count(word, 0, word.length));
+        }
+        assertTrue(cache.stats().hits() > 0);
+    }
+
+    @Test
+    public void casesShareAnEntry() {
+        SyllableCache cache = new SyllableCache(16);
+        assertEquals(3, cache.count("Banana".toCharArray(), 0, 6));
+        assertEquals(3, cache.count("xBANANAx".toCharArray(), 1, 6));
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().size());
+    }
+
+    @Test
+    public void frequentWordSurvivesAScanOfOneOffWords() {
+        SyllableCache cache = new SyllableCache(64);
+        char[] the = "the".toCharArray();
+        for (int i = 0; i < 10; i++) {
+            cache.count(the, 0, the.length);
+        }
+        SplittableRandom random = new SplittableRandom(37);
+        for (int i = 0; i < 10000; i++) {
+            char[] word = randomWord(random, 8);
+            cache.count(word, 0, word.length);
+            if (i % 10 == 9) {
+                long hits = cache.stats().hits();
+                cache.count(the, 0, the.length);
+                assertEquals("lookup " + i, hits + 1, cache.stats().hits());
+            }
+        }
+        assertTrue(cache.stats().size() <= cache.stats().capacity());
+    }
+
+    @Test
+    public void hitsAndMissesAddUpToTheLookups() throws InterruptedException {
+        SyllableCache cache = new SyllableCache(128);
+        int threads = 4;
+        int lookups = 20000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(41 + t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < lookups; i++) {
+                    char[] word = randomWord(random, 1 + random.nextInt(3));
+                    cache.count(word, 0, word.length);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        SyllableCache.Stats stats = cache.stats();
+        assertEquals(threads * lookups, stats.hits() + stats.misses());
+        assertTrue(stats.hits() > 0 && stats.misses() > 0);
+        assertEquals((double) stats.hits() / (threads * lookups), stats.hitRate(), 1e-12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnEmptyCache() {
+        new SyllableCache(0);
+    }
+
+    // --- Private Helper Methods ---
+
+    private static char[] randomWord(SplittableRandom random, int length) {
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) {
+            word[i] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        }
+        return word;
+    }
+}
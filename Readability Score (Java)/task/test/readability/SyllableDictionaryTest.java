@@ -0,0 +1,105 @@
+package readability;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compiles small dictionaries to temporary files and looks words up in the mapped result.
+ */
+public class SyllableDictionaryTest {
+
+    private static final String CMU_LINES = String.join("\n",
+            ";;; A comment, as at the top of the CMU dictionary",
+            "READABILITY  R IY2 D AH0 B IH1 L IH0 T IY0",
+            "HELLO  HH AH0 L OW1",
+            "HELLO(2)  HH EH0 L OW1 W ER0",
+            "'BOUT  B AW1 T",
+            "A.  EY1",
+            "'TIL  T IH1 L AH0",
+            "TIL  T IH1 L",
+            "A.B.C.  EY1 B IY1 S IY1",
+            "HMM  HH M",
+            "READY 2",
+            "CAF  K AE1 F",
+            "");
+
+    @Test
+    public void compiledWordsAreFoundIgnoringCaseAndPunctuation() throws IOException {
+        Path source = Files.createTempFile("syllables", ".txt");
+        Path compiled = Files.createTempFile("syllables", ".bin");
+        try {
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            lines.writeBytes(CMU_LINES.getBytes(StandardCharsets.US_ASCII));
+            // "CAFÉ" as in the Latin-1 releases of the dictionary: not UTF-8, so skipped, not cut to "caf"
+            lines.writeBytes(new byte[] {'C', 'A', 'F', (byte) 0xC9, ' ', ' ', 'K', ' ', 'A', 'H', '0', '\n'});
+            Files.write(source, lines.toByteArray());
+
+            // The variant and the stripped 'TIL give way to earlier and unstripped entries;
+            // A.B.C., HMM and CAFÉ cannot be looked up or have no syllable
+            assertEquals(new SyllableDictionary.Summary(7, 3), SyllableDictionary.compile(source, compiled));
+
+            SyllableDictionary dictionary = SyllableDictionary.load(compiled);
+            assertEquals(7, dictionary.size());
+            assertEquals(5, count(dictionary, "readability"));
+            assertEquals(5, count(dictionary, "Readability,"));
+            assertEquals(2, count(dictionary, "\"HELLO!\""));
+            assertEquals(1, count(dictionary, "'bout"));
+            assertEquals(1, count(dictionary, "bout"));
+            assertEquals(1, count(dictionary, "A"));
+            assertEquals(1, count(dictionary, "til"));
+            assertEquals(2, count(dictionary, "Ready."));
+            assertEquals(2, dictionary.count("xxhelloxx".toCharArray(), 2, 5));
+            assertEquals(1, count(dictionary, "caf"));
+
+            assertEquals(SyllableSource.UNKNOWN, count(dictionary, "world"));
+            assertEquals(SyllableSource.UNKNOWN, count(dictionary, "hmm"));
+            assertEquals(SyllableSource.UNKNOWN, count(dictionary, "a.b.c"));
+            assertEquals(SyllableSource.UNKNOWN, count(dictionary, "café"));
+            assertEquals(SyllableSource.UNKNOWN, count(dictionary, "İ"));
+            assertEquals(SyllableSource.UNKNOWN, count(dictionary, "..."));
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(compiled);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAWrongMagicNumber() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(24).putInt(0x52445358).putInt(1).putInt(1).putInt(0);
+        loadBytes(header.array());
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAFileShorterThanItsHeader() throws IOException {
+        loadBytes(new byte[] {0x52, 0x44, 0x53, 0x59, 0, 0, 0, 1});
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAFileShorterThanItsSlots() throws IOException {
+        loadBytes(ByteBuffer.allocate(24).putInt(0x52445359).putInt(1).putInt(1024).putInt(1).array());
+    }
+
+    // --- Private Helper Methods ---
+
+    private static int count(SyllableDictionary dictionary, String word) {
+        return dictionary.count(word.toCharArray(), 0, word.length());
+    }
+
+    private static void loadBytes(byte[] bytes) throws IOException {
+        Path path = Files.createTempFile("syllables", ".bin");
+        try {
+            Files.write(path, bytes);
+            SyllableDictionary.load(path);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package readability;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random texts and reference scans shared by the tests that compare a feature with a plain
+ * {@link TextScanner} pass.
+ */
+final class TextFixtures {
+
+    /**
+     * Characters of the random texts: word characters with vowels, every terminator, spaces,
+     * line feeds (often enough for blank lines), a control character and the dotted capital I.
+     */
+    static final String ALPHABET = "aeyb.!? \n\n\u0001İ";
+
+    private TextFixtures() {
+    }
+
+    /**
+     * Scans a whole text in one go.
+     * @param text The text.
+     * @return Its statistics.
+     */
+    static TextStatistics scan(CharSequence text) {
+        return new TextScanner().accept(text).finish().getStatistics();
+    }
+
+    /**
+     * Draws a text from {@link #ALPHABET}.
+     * @param random The source of randomness, seeded by the test.
+     * @param length The number of characters.
+     * @return The text.
+     */
+    static String randomText(SplittableRandom random, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,178 @@
+package readability;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks every input path of the scanner against the regex pipeline it replaced, kept here as
+ * the reference, on texts full of control characters, terminator runs and 'İ'.
+ */
+public class TextScannerTest {
+
+    // Whitespace, control characters that are not, terminators, vowels and the dotted capital I
+    private static final String ALPHABET = "aeiolxyzbEİ .!?\n\t\u0000\u0001\u001fle";
+    // Mostly letters and spaces, so that whole blocks take the SIMD path when it is on
+    private static final String SPARSE_ALPHABET = "abcdefghijklmnopqrstuvwxyz  eeaa.";
+
+    @Test
+    public void controlCharactersCountBetweenWordCharactersOnly() {
+        assertCounts("Hello there.\u0001 World!", 2, 3, 18);
+        assertCounts("Hello \u0001 there.", 1, 3, 12);
+        assertCounts("Hello\u0001 there.", 1, 2, 12);
+        assertCounts("Hello\u0001there.", 1, 1, 12);
+        assertCounts("Hello there \u0001", 1, 2, 10);
+        assertCounts("\u0001\u0001Hello.\u0001", 1, 1, 6);
+        assertCounts("Hello \u0001. There", 2, 2, 12);
+    }
+
+    @Test
+    public void wordlessTextCountsItsTokens() {
+        // One sentence of the whitespace-separated tokens, with a syllable for each long one
+        assertCounts(". \u0001 .", 1, 3, 3);
+        assertEquals(0, scan(". \u0001 .").getSyllableCount());
+        assertCounts(".\u0001. .", 1, 2, 4);
+        assertEquals(1, scan(".\u0001. .").getSyllableCount());
+        assertCounts("\u0001. .\u0001", 1, 2, 2);
+        assertEquals(0, scan("\u0001. .\u0001").getSyllableCount());
+    }
+
+    @Test
+    public void dottedCapitalIEndsItsVowelGroup() {
+        assertEquals(reference("İİ. Aİe bİİ"), counts(scan("İİ. Aİe bİİ")));
+        assertEquals(2, scan("İa").getSyllableCount());
+    }
+
+    @Test
+    public void randomTextsMatchTheRegexPipeline() {
+        SplittableRandom random = new SplittableRandom(23);
+        for (int run = 0; run < 5000; run++) {
+            String alphabet = run % 2 == 0 ? ALPHABET : SPARSE_ALPHABET;
+            String text = randomText(random, alphabet, random.nextInt(run % 10 == 0 ? 600 : 60));
+            if (run % 2 == 1) {
+                text = withControlCharacters(text, random);
+            }
+            assertAllPaths(text);
+        }
+    }
+
+    // --- Private Helper Methods ---
+
+    private static void assertCounts(String text, long sentences, long words, long characters) {
+        TextStatistics statistics = scan(text);
+        assertEquals(text, sentences, statistics.getSentenceCount());
+        assertEquals(text, words, statistics.getWordCount());
+        assertEquals(text, characters, statistics.getCharacterCount());
+        assertAllPaths(text);
+    }
+
+    /**
+     * Scans a text as a string, as chars, with a syllable source and, without 'İ', as ASCII
+     * bytes, and compares each scan with the regex pipeline.
+     */
+    private static void assertAllPaths(String text) {
+        List<Long> expected = reference(text);
+        assertEquals(text, expected, counts(scan(text)));
+
+        char[] chars = text.toCharArray();
+        assertEquals(text, expected, counts(new TextScanner().accept(chars, 0, chars.length).finish().getStatistics()));
+        assertEquals(text, expected, counts(new TextScanner(true, SyllableSource.HEURISTIC)
+                .accept(chars, 0, chars.length).finish().getStatistics()));
+        assertEquals(text, expected, counts(new TextScanner(true, new SyllableCache(64))
+                .accept(text).finish().getStatistics()));
+
+        String ascii = text.replace('İ', 'I');
+        byte[] bytes = ascii.getBytes(StandardCharsets.US_ASCII);
+        TextScanner scanner = new TextScanner();
+        assertEquals(ascii, bytes.length, scanner.acceptAscii(ByteBuffer.wrap(bytes), 0, bytes.length));
+        assertEquals(ascii, reference(ascii), counts(scanner.finish().getStatistics()));
+    }
+
+    private static TextStatistics scan(String text) {
+        return new TextScanner().accept(text).finish().getStatistics();
+    }
+
+    private static List<Long> counts(TextStatistics statistics) {
+        return List.of(statistics.getSentenceCount(), statistics.getWordCount(), statistics.getCharacterCount(),
+                statistics.getSyllableCount(), statistics.getPolysyllableCount());
+    }
+
+    private static String randomText(SplittableRandom random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Replaces a few characters with control characters, so that most blocks have none.
+     */
+    private static String withControlCharacters(String text, SplittableRandom random) {
+        StringBuilder sb = new StringBuilder(text);
+        for (int i = random.nextInt(4); i > 0 && sb.length() > 0; i--) {
+            sb.setCharAt(random.nextInt(sb.length()), random.nextBoolean() ? '\u0001' : '\u001f');
+        }
+        return sb.toString();
+    }
+
+    // --- The Former Regex Pipeline ---
+
+    /**
+     * Counts sentences, words, characters, syllables and polysyllables as the regex pipeline did.
+     */
+    private static List<Long> reference(String rawText) {
+        String text = rawText.trim().replaceAll("\\s+", " ");
+        List<String> sentences = new ArrayList<>();
+        for (String sentence : text.split("[.!?]+\\s*")) {
+            if (!sentence.trim().isEmpty()) {
+                sentences.add(sentence.trim());
+            }
+        }
+        if (sentences.isEmpty() && !text.trim().isEmpty()) {
+            sentences.add(text.trim());
+        }
+        long words = 0;
+        long syllables = 0;
+        long polysyllables = 0;
+        for (String sentence : sentences) {
+            for (String word : sentence.trim().split("\\s+")) {
+                if (!word.isEmpty()) {
+                    int wordSyllables = referenceSyllables(word);
+                    words++;
+                    syllables += wordSyllables;
+                    polysyllables += wordSyllables > 2 ? 1 : 0;
+                }
+            }
+        }
+        return List.of((long) sentences.size(), words, (long) text.replaceAll("\\s+", "").length(),
+                syllables, polysyllables);
+    }
+
+    private static int referenceSyllables(String word) {
+        word = word.toLowerCase().replaceAll("[^a-z]$", "");
+        int syllables = 0;
+        boolean lastWasVowel = false;
+        for (int i = 0; i < word.length(); i++) {
+            boolean vowel = isVowel(word.charAt(i));
+            if (vowel && !lastWasVowel) {
+                syllables++;
+            }
+            lastWasVowel = vowel;
+        }
+        if (word.endsWith("e") && syllables > 1 && !word.endsWith("le") && !isVowel(word.charAt(word.length() - 2))) {
+            syllables--;
+        }
+        return syllables == 0 && !word.isEmpty() ? 1 : syllables;
+    }
+
+    private static boolean isVowel(char c) {
+        return "aeiouy".indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,100 @@
+package readability;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static readability.TextFixtures.randomText;
+
+/**
+ * Checks that the indexed words and sentences are the ones {@link TextScanner} counts.
+ */
+public class TokenIndexTest {
+
+    @Test
+    public void countsMatchTheScanner() {
+        SplittableRandom random = new SplittableRandom(13);
+        for (int run = 0; run < 300; run++) {
+            String text = randomText(random, random.nextInt(200));
+            TokenIndex index = TokenIndex.of(text);
+            TextScanner scanner = new TextScanner().accept(text).finish();
+            // The raw counts, without the fallback to tokens of a text made only of terminators
+            assertEquals(text, scanner.getWordCount(), index.getWordCount());
+            assertEquals(text, scanner.getSentenceCount(), index.getSentenceCount());
+        }
+    }
+
+    @Test
+    public void wordsAreRunsBetweenWhitespaceAndTerminators() {
+        SplittableRandom random = new SplittableRandom(17);
+        for (int run = 0; run < 300; run++) {
+            String text = randomText(random, random.nextInt(200));
+            TokenIndex index = TokenIndex.of(text);
+            int previousEnd = 0;
+            for (int i = 0; i < index.getWordCount(); i++) {
+                int start = index.getWordStart(i);
+                int end = start + index.getWordLength(i);
+                assertTrue(text, start >= previousEnd && end > start);
+                for (int k = start; k < end; k++) {
+                    assertTrue(text, isWordMaterial(text.charAt(k)));
+                }
+                // Control characters at the edges of a sentence are trimmed off its words
+                assertTrue(text, start == 0 || !TextScanner.isWordCharacter(text.charAt(start - 1)));
+                assertTrue(text, end == text.length() || !TextScanner.isWordCharacter(text.charAt(end)));
+                assertEquals(text.substring(start, end), index.getWord(i).toString());
+                previousEnd = end;
+            }
+        }
+    }
+
+    @Test
+    public void sentencesEndWhereTheScannerCountsThem() {
+        SplittableRandom random = new SplittableRandom(19);
+        for (int run = 0; run < 300; run++) {
+            String text = randomText(random, random.nextInt(200));
+            TokenIndex index = TokenIndex.of(text);
+            TextScanner scanner = new TextScanner();
+            int sentence = 0;
+            for (int i = 0; i < text.length(); i++) {
+                scanner.accept(text.charAt(i));
+                if (scanner.getSentenceCount() > sentence) {
+                    assertEquals(text, i + 1, index.getSentenceEnd(sentence++));
+                }
+            }
+            if (scanner.finish().getSentenceCount() > sentence) {
+                // An unterminated last sentence ends with its last word
+                int lastWord = index.getWordCount() - 1;
+                assertEquals(text, index.getWordStart(lastWord) + index.getWordLength(lastWord),
+                        index.getSentenceEnd(sentence++));
+            }
+            int words = 0;
+            for (int i = 0; i < index.getSentenceCount(); i++) {
+                assertEquals(text, words, index.getFirstWord(i));
+                words += index.getSentenceWordCount(i);
+            }
+            assertEquals(text, index.getWordCount(), words);
+        }
+    }
+
+    @Test
+    public void viewsReadThroughToTheSource() {
+        StringBuilder source = new StringBuilder("Hi there... General Kenobi!");
+        TokenIndex index = TokenIndex.of(source);
+        assertEquals(2, index.getSentenceCount());
+        assertEquals("Hi there.", index.getSentence(0).toString());
+        assertEquals("General Kenobi!", index.getSentence(1).toString());
+        CharSequence word = index.getWord(3);
+        assertEquals("Kenobi", word.toString());
+        assertEquals("nob", word.subSequence(2, 5).toString());
+        assertFalse(word instanceof String);
+    }
+
+    // --- Private Helper Methods ---
+
+    private static boolean isWordMaterial(char c) {
+        return !TextScanner.isWhitespace(c) && !TextScanner.isTerminator(c);
+    }
+}
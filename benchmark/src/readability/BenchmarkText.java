@@ -0,0 +1,84 @@
+package readability;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates reproducible English-like text of a given size for the benchmarks.
+ */
+final class BenchmarkText {
+
+    private static final String[] SENTENCES = {
+            "Readability is the ease with which a reader can understand a written text.",
+            "In natural language, the readability of text depends on its content and its presentation.",
+            "Researchers have used various factors to measure readability.",
+            "Readability is more than simply legibility, which is a measure of how easily a reader can "
+                    + "distinguish individual letters or characters from each other.",
+            "Higher readability eases reading effort and speed for any reader, but it is especially "
+                    + "important for those who do not have high reading comprehension.",
+            "In readers with poor reading comprehension, raising the readability level of a text from "
+                    + "mediocre to good can make the difference between success and failure!",
+            "Is this sentence hard to read?",
+            "The quick brown fox jumps over the lazy dog...",
+    };
+
+    private BenchmarkText() {
+    }
+
+    /**
+     * Builds a text of exactly the given length out of shuffled sample sentences and paragraphs.
+     * @param length Number of characters.
+     * @return The generated text.
+     */
+    static String generate(int length) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(length + 256);
+        while (sb.length() < length) {
+            sb.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+            sb.append(random.nextInt(8) == 0 ? "\n\n" : " ");
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    /**
+     * Writes a generated text of the given length to a temporary file, deleted on exit.
+     * @param length Number of characters.
+     * @return Path to the file.
+     * @throws IOException If the file cannot be written.
+     */
+    static Path generateFile(int length) throws IOException {
+        Path file = Files.createTempFile("readability-benchmark-", ".txt");
+        file.toFile().deleteOnExit();
+        Files.writeString(file, generate(length), Charset.defaultCharset());
+        return file;
+    }
+
+    /**
+     * Writes a generated text of the given length to a gzip-compressed temporary file, deleted on exit.
+     * @param length Number of characters.
+     * @return Path to the file.
+     * @throws IOException If the file cannot be written.
+     */
+    static Path generateGzipFile(int length) throws IOException {
+        Path file = Files.createTempFile("readability-benchmark-", ".txt.gz");
+        file.toFile().deleteOnExit();
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(generate(length).getBytes(Charset.defaultCharset()));
+        }
+        return file;
+    }
+
+    /**
+     * Splits the sample sentences into whitespace-separated words.
+     * @return The sample words, punctuation included.
+     */
+    static String[] words() {
+        return String.join(" ", SENTENCES).split("\\s+");
+    }
+}
@@ -0,0 +1,86 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingestion throughput of encoded bytes, in MB/s: every invocation scans {@value #MEGABYTES} MB
+ * and counts as that many operations. Compares decoding every byte into chars with handing
+ * ASCII bytes straight to the scanner, per byte and with the SIMD classifier, on plain ASCII
+ * text and on text with a sprinkling of non-ASCII characters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ByteInputBenchmark {
+
+    static final int MEGABYTES = 64;
+
+    /** Plain ASCII text, or the same text with an accented letter in some words. */
+    @Param({"ascii", "mixed"})
+    public String content;
+
+    private ByteBuffer bytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String text = BenchmarkText.generate(MEGABYTES * 1024 * 1024);
+        if ("mixed".equals(content)) {
+            text = text.replace("fox", "föx").replace("reader", "réader");
+        }
+        CharsetDecoder decoder = ByteInput.newDecoder();
+        bytes = decoder.charset().encode(text);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEGABYTES)
+    public TextStatistics decode() {
+        CharsetDecoder decoder = ByteInput.newDecoder();
+        CharBuffer chars = ByteInput.newCharBuffer();
+        TextScanner scanner = new TextScanner();
+        ByteInput.decode(decoder, bytes.duplicate(), chars, true, scanner);
+        ByteInput.flush(decoder, chars, scanner);
+        return scanner.finish().getStatistics();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEGABYTES)
+    public TextStatistics asciiFastPath() {
+        return scanAscii();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEGABYTES)
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules=jdk.incubator.vector", "-Dreadability.simd=true"})
+    public TextStatistics asciiFastPathVector() {
+        return scanAscii();
+    }
+
+    private TextStatistics scanAscii() {
+        CharsetDecoder decoder = ByteInput.newDecoder();
+        CharBuffer chars = ByteInput.newCharBuffer();
+        TextScanner scanner = new TextScanner();
+        ByteInput.scanAscii(decoder, bytes.duplicate(), chars, true, scanner);
+        ByteInput.flush(decoder, chars, scanner);
+        return scanner.finish().getStatistics();
+    }
+}
@@ -0,0 +1,56 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one keystroke in the middle of a document, typing then deleting a character,
+ * and rescoring, compared with rescanning the whole text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IncrementalDocumentBenchmark {
+
+    /** Input size in characters: 1 KB, 1 MB and 100 MB. */
+    @Param({"1024", "1048576", "104857600"})
+    public int size;
+
+    private String text;
+    private IncrementalDocument document;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = BenchmarkText.generate(size);
+        document = new IncrementalDocument(text);
+        position = size / 2;
+    }
+
+    @Benchmark
+    public double keystroke() {
+        document.insert(position, "a");
+        document.delete(position, 1);
+        return document.getReadability().getFkScore();
+    }
+
+    @Benchmark
+    public double fullRescan() {
+        return Readability.fromStatistics(new TextScanner().accept(text).finish().getStatistics()).getFkScore();
+    }
+}
@@ -0,0 +1,82 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of scoring a file through each Readability entry point, and of scoring
+ * a gzip-compressed copy, which is inflated while it streams into the scanner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReadabilityBenchmark {
+
+    /** Input size in characters: 1 KB, 1 MB and 100 MB. */
+    @Param({"1024", "1048576", "104857600"})
+    public int size;
+
+    private Path file;
+    private Path gzipFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = BenchmarkText.generateFile(size);
+        gzipFile = BenchmarkText.generateGzipFile(size);
+    }
+
+    @Benchmark
+    public Readability constructor() throws IOException {
+        return new Readability(file.toString());
+    }
+
+    @Benchmark
+    public Readability mappedFile() throws IOException {
+        return Readability.fromMappedFile(file.toString());
+    }
+
+    @Benchmark
+    public Readability gzipFile() throws IOException {
+        return Readability.fromMappedFile(gzipFile.toString());
+    }
+
+    @Benchmark
+    public Readability reader() throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, Charset.defaultCharset())) {
+            return Readability.fromReader(reader);
+        }
+    }
+
+    @Benchmark
+    public Readability inputStream() throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Readability.fromInputStream(in);
+        }
+    }
+
+    @Benchmark
+    public Readability fileParallel() throws IOException {
+        return Readability.fromFileParallel(file.toString());
+    }
+}
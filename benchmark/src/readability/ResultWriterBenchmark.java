@@ -0,0 +1,63 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records written per second by each result format, to a stream that discards them, so
+ * only the encoding and buffering are measured. Every invocation writes {@value #RECORDS}
+ * records and counts as that many operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultWriterBenchmark {
+
+    static final int RECORDS = 10_000;
+
+    @Param({"PLAIN", "CSV", "JSONL", "BINARY"})
+    public ResultFormat format;
+
+    private final Set<ReadabilityScoreMapping.IndexType> indices = EnumSet.allOf(ReadabilityScoreMapping.IndexType.class);
+    private final String[] names = new String[RECORDS];
+    private Readability readability;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        readability = Readability.fromStatistics(
+                new TextScanner().accept(BenchmarkText.generate(4096)).finish().getStatistics());
+        for (int i = 0; i < RECORDS; i++) {
+            names[i] = "corpus/section-" + i / 100 + "/document-" + i + ".txt";
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void write() throws IOException {
+        ResultWriter writer = format.newWriter(OutputStream.nullOutputStream(), indices);
+        for (String name : names) {
+            writer.write(name, readability);
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,57 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping scores to ages, and of setting up the mapping itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreMappingBenchmark {
+
+    // Scores below, inside and above every mapped range
+    private final double[] scores = {-3.5, 0.0, 1.0, 4.2, 7.99, 12.84, 13.56, 14.5, 15.0, 22.7};
+
+    private final ReadabilityScoreMapping mapping = new ReadabilityScoreMapping();
+
+    @Benchmark
+    public int getInfoFromScore() {
+        int total = 0;
+        for (ReadabilityScoreMapping.IndexType type : ReadabilityScoreMapping.IndexType.values()) {
+            for (double score : scores) {
+                total += mapping.getInfoFromScore(type, score).getApproxAge();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int infoFor() {
+        int total = 0;
+        for (ReadabilityScoreMapping.IndexType type : ReadabilityScoreMapping.IndexType.values()) {
+            for (double score : scores) {
+                total += ReadabilityScoreMapping.infoFor(type, score).getApproxAge();
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public ReadabilityScoreMapping createMapping() {
+        return new ReadabilityScoreMapping();
+    }
+}
@@ -0,0 +1,102 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the syllable heuristic over all the words of the sample sentences,
+ * punctuation included, as plain strings and as char arrays, compared with the
+ * shared cache and the memory-mapped dictionary.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SyllableCounterBenchmark {
+
+    private final String[] words = BenchmarkText.words();
+    private final char[][] wordChars = toCharArrays(words);
+    private final SyllableCache cache = new SyllableCache(4096);
+    private SyllableDictionary dictionary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // A dictionary of the sample words, so that every lookup is a hit
+        Set<String> lines = new LinkedHashSet<>();
+        for (String word : words) {
+            String key = word.replaceAll("^[^A-Za-z]+|[^A-Za-z]+$", "").toLowerCase();
+            if (key.matches("[a-z][a-z'-]*")) {
+                lines.add(key + " " + Math.max(1, SyllableCounter.count(key, 0, key.length())));
+            }
+        }
+        Path source = Files.createTempFile("readability-dictionary-", ".txt");
+        Path compiled = Files.createTempFile("readability-dictionary-", ".bin");
+        source.toFile().deleteOnExit();
+        compiled.toFile().deleteOnExit();
+        Files.write(source, lines);
+        SyllableDictionary.compile(source, compiled);
+        dictionary = SyllableDictionary.load(compiled);
+    }
+
+    @Benchmark
+    public int countCharSequence() {
+        int total = 0;
+        for (String word : words) {
+            total += SyllableCounter.count(word, 0, word.length());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int countCharArray() {
+        int total = 0;
+        for (char[] word : wordChars) {
+            total += SyllableCounter.count(word, 0, word.length);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int countCached() {
+        int total = 0;
+        for (char[] word : wordChars) {
+            total += cache.count(word, 0, word.length);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int countDictionary() {
+        int total = 0;
+        for (char[] word : wordChars) {
+            total += dictionary.count(word, 0, word.length);
+        }
+        return total;
+    }
+
+    private static char[][] toCharArrays(String[] words) {
+        char[][] arrays = new char[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            arrays[i] = words[i].toCharArray();
+        }
+        return arrays;
+    }
+}
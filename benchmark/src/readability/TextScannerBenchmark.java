@@ -0,0 +1,64 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory tokenizing cost: sentence splitting, word splitting, character and syllable
+ * counting, which all happen in the same TextScanner pass, and the same pass without the
+ * syllable analysis, as run when only ARI and Coleman–Liau are requested, and the same
+ * pass recording the per-sentence breakdown.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TextScannerBenchmark {
+
+    /** Input size in characters: 1 KB, 1 MB and 100 MB. */
+    @Param({"1024", "1048576", "104857600"})
+    public int size;
+
+    private String text;
+    private char[] chars;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = BenchmarkText.generate(size);
+        chars = text.toCharArray();
+    }
+
+    @Benchmark
+    public TextStatistics scanString() {
+        return new TextScanner().accept(text).finish().getStatistics();
+    }
+
+    @Benchmark
+    public TextStatistics scanCharArray() {
+        return new TextScanner().accept(chars, 0, chars.length).finish().getStatistics();
+    }
+
+    @Benchmark
+    public TextStatistics scanWithoutSyllables() {
+        return new TextScanner(false).accept(chars, 0, chars.length).finish().getStatistics();
+    }
+
+    @Benchmark
+    public SentenceBreakdown scanWithBreakdown() {
+        return SentenceBreakdown.of(text);
+    }
+}
@@ -0,0 +1,69 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and walking the word list of a text as offsets, compared with the regex split
+ * into one String per word it replaces. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TokenIndexBenchmark {
+
+    /** Input size in characters: 1 KB and 1 MB. */
+    @Param({"1024", "1048576"})
+    public int size;
+
+    private String text;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        text = BenchmarkText.generate(size);
+    }
+
+    @Benchmark
+    public long indexTokens() {
+        TokenIndex index = TokenIndex.of(text);
+        long total = 0;
+        for (int i = 0; i < index.getWordCount(); i++) {
+            total += index.getWordLength(i);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long splitTokens() {
+        List<String> words = new ArrayList<>();
+        for (String sentence : text.split("[.!?]+")) {
+            for (String word : sentence.trim().split("\\s+")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        long total = 0;
+        for (String word : words) {
+            total += word.length();
+        }
+        return total;
+    }
+}
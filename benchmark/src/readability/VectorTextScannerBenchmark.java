@@ -0,0 +1,12 @@
+package readability;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * The TextScanner benchmarks again, with the Vector API module added and the SIMD classifier
+ * turned on, so that character arrays are classified in blocks. Compare with
+ * {@link TextScannerBenchmark}, which runs the per-character path.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules=jdk.incubator.vector", "-Dreadability.simd=true"})
+public class VectorTextScannerBenchmark extends TextScannerBenchmark {
+}